@@ -0,0 +1,53 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Misst die Grundoperationen der Game-API, auf denen alle Agenten aufbauen.
+ */
+@State(Scope.Thread)
+public class GameBenchmark {
+    private static final int MOVES = 64;
+
+    private Game game;
+    private Placement[] moves;
+    private int next;
+
+    /**
+     * Wählt eine Stellung und einen Vorrat legaler Züge für takeTurn/undoLastTurn.
+     */
+    @Setup(Level.Iteration)
+    public void setup(MidGamePositions positions) {
+        game = positions.next();
+        Random random = new Random(MOVES);
+        moves = new Placement[MOVES];
+        for (int i = 0; i < MOVES; i++) {
+            moves[i] = PositionSampler.randomPlacement(game, random);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public Game copy() {
+        return game.copy();
+    }
+
+    @Benchmark
+    public boolean takeTurnAndUndo() {
+        Placement placement = moves[next];
+        next = (next + 1) % MOVES;
+        if (placement == null || !game.takeTurn(placement)) {
+            return false;
+        }
+        game.undoLastTurn();
+        return true;
+    }
+}
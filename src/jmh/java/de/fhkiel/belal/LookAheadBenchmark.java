@@ -0,0 +1,33 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+
+/**
+ * Misst den LookAheadAgent und seine Flächenzählung.
+ */
+@State(Scope.Thread)
+public class LookAheadBenchmark {
+    private final LookAheadAgent agent = new LookAheadAgent();
+    private final AreaTracker areas = new AreaTracker(1);
+
+    @Benchmark
+    public Optional<Placement> calculateTurn(MidGamePositions positions) {
+        return agent.calculateTurn(positions.next(), 0, 0);
+    }
+
+    /**
+     * Enthält das Zurücksetzen des AreaTrackers, da das Ablesen der Fläche allein nur ein Feldzugriff ist.
+     */
+    @Benchmark
+    public int ownedArea(MidGamePositions positions) {
+        Game game = positions.next();
+        areas.reset(game);
+        return areas.ownedArea(game.getCurrentPlayer());
+    }
+}
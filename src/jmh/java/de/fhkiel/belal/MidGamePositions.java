@@ -0,0 +1,45 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Korpus von Mittelspielstellungen für alle Benchmarks. Die Stellungen werden mit festem Seed
+ * nachgespielt und sind deshalb bei jedem Lauf identisch. Die Benchmarks gehen die Stellungen
+ * reihum durch, damit kein Ergebnis an einer einzelnen Stellung hängt.
+ */
+@State(Scope.Thread)
+public class MidGamePositions {
+    private static final int COUNT = 16;
+    private static final long SEED = 42;
+
+    /**
+     * Die Anzahl der Züge ab Spielbeginn, früh, mittel und spät im Mittelspiel.
+     */
+    @Param({"8", "14", "20"})
+    public int plies;
+
+    private List<Game> positions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void load() {
+        positions = PositionSampler.randomPositions(COUNT, plies, SEED);
+        next = 0;
+    }
+
+    /**
+     * @return Die nächste Stellung des Korpus. Benchmarks müssen sie unverändert zurücklassen.
+     */
+    public Game next() {
+        Game game = positions.get(next);
+        next = (next + 1) % positions.size();
+        return game;
+    }
+}
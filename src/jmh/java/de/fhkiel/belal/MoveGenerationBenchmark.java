@@ -0,0 +1,23 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Misst die Zuggenerierung des MinimaxAgent.
+ */
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+    private final MinimaxAgent agent = new MinimaxAgent(1);
+
+    @Benchmark
+    public List<Placement> generatePossiblePlacements(MidGamePositions positions) {
+        Game game = positions.next();
+        return agent.generatePossiblePlacements(game, game.getCurrentPlayer());
+    }
+}
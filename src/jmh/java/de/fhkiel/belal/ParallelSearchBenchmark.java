@@ -0,0 +1,39 @@
+package de.fhkiel.belal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Misst den Speedup der parallelen Minimax-Suche: die Zeit bis zur festen Tiefe mit einem und mit mehreren
+ * Threads. Der Speedup ist das Verhältnis der avgt-Werte von threads=1 und threads=N bei gleicher Tiefe.
+ * Die Transpositionstabelle wird vor jeder Suche geleert.
+ * <p>
+ * Start: {@code ./gradlew jmh -Pjmh.includes=ParallelSearchBenchmark}
+ */
+@State(Scope.Thread)
+public class ParallelSearchBenchmark {
+    private static final int TT_SIZE_MB = 64;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    @Param({"2", "3"})
+    public int depth;
+
+    private MinimaxAgent agent;
+
+    @Setup(Level.Trial)
+    public void createAgent() {
+        agent = new MinimaxAgent(TT_SIZE_MB, threads);
+        agent.setVerbosity(SearchVerbosity.OFF);
+    }
+
+    @Benchmark
+    public int minimax(MidGamePositions positions) {
+        return agent.searchFixedDepth(positions.next(), depth);
+    }
+}
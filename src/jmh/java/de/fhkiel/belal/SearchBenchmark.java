@@ -0,0 +1,23 @@
+package de.fhkiel.belal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Misst die Minimax-Suche bei fester Tiefe ohne Zeitlimit. Die Transpositionstabelle wird vor jeder
+ * Suche geleert, gemessen wird also immer eine kalte Suche.
+ */
+@State(Scope.Thread)
+public class SearchBenchmark {
+    @Param({"1", "2", "3"})
+    public int depth;
+
+    private final MinimaxAgent agent = new MinimaxAgent(16);
+
+    @Benchmark
+    public int minimax(MidGamePositions positions) {
+        return agent.searchFixedDepth(positions.next(), depth);
+    }
+}
@@ -0,0 +1,269 @@
+package de.fhkiel.belal;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Lokaler HTTP-Dienst, der Stellungen mit dem MinimaxAgent analysiert, ohne die GUI zu starten. Der Server lauscht
+ * nur auf der Loopback-Adresse. Jeder Worker-Thread hat einen eigenen Agenten mit eigener Transpositionstabelle;
+ * die Agenten bleiben über alle Anfragen erhalten, die Tabellen also warm, auch wenn die Farbe am Zug wechselt.
+ * Ist die Warteschlange voll, bearbeitet der annehmende Thread die Anfrage selbst und nimmt so lange keine
+ * weiteren Verbindungen an.
+ * <p>
+ * Schnittstelle:
+ * <ul>
+ *     <li>{@code GET /health} liefert "ok" und die Anzahl der Worker.</li>
+ *     <li>{@code POST /analyse?millis=MS&positions=last|all} mit dem Inhalt einer Partiedatei im Format von
+ *     {@link RecordedGame} als Body. Analysiert wird pro Partie die Stellung nach dem letzten Zug oder mit
+ *     positions=all jede Stellung der Partie, jeweils mit höchstens millis Millisekunden (begrenzt durch
+ *     --max-millis). Die Antwort ist CSV: Partie, Halbzug, die Spalten von {@link SearchRecord#CSV_HEADER}
+ *     und die Hauptvariante. Beendete Stellungen werden übersprungen, ohne legalen Zug ist best_move null.</li>
+ * </ul>
+ * Aufruf: {@code AnalysisServer [--port N] [--workers N] [--tt MB] [--max-millis MS]}
+ * <br>Beispiel: {@code curl --data-binary @games.rec "http://localhost:8765/analyse?millis=500"}
+ */
+public final class AnalysisServer implements Closeable {
+    public static final int DEFAULT_PORT = 8765;
+    private static final long DEFAULT_MILLIS = 1000;
+    private static final long DEFAULT_MAX_MILLIS = 30000;
+    private static final int DEFAULT_TT_SIZE_MB = 64;
+    /** Anfragen, die auf einen freien Worker warten dürfen. */
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int MAX_BODY_BYTES = 16 << 20;
+    /** Obergrenze der Stellungen pro Anfrage, damit eine Anfrage keinen Worker unbegrenzt belegt. */
+    private static final int MAX_POSITIONS = 10000;
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final BlockingQueue<MinimaxAgent> engines;
+    private final int workers;
+    private final long maxMillis;
+
+    private AnalysisServer(HttpServer server, ThreadPoolExecutor executor, BlockingQueue<MinimaxAgent> engines,
+                           int workers, long maxMillis) {
+        this.server = server;
+        this.executor = executor;
+        this.engines = engines;
+        this.workers = workers;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Startet den Server auf der Loopback-Adresse.
+     *
+     * @param port      Der Port, 0 für einen freien Port.
+     * @param workers   Die Anzahl gleichzeitig bearbeiteter Anfragen und damit der Agenten.
+     * @param ttSizeMb  Die Größe der Transpositionstabelle pro Agent in Megabyte.
+     * @param maxMillis Die höchste Bedenkzeit pro Stellung, die eine Anfrage verlangen kann.
+     */
+    public static AnalysisServer start(int port, int workers, int ttSizeMb, long maxMillis) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1: " + workers);
+        }
+        BlockingQueue<MinimaxAgent> engines = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            MinimaxAgent engine = new MinimaxAgent(ttSizeMb);
+            engine.setVerbosity(SearchVerbosity.OFF);
+            engines.add(engine);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "analysis-worker");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), QUEUE_CAPACITY);
+        AnalysisServer analysis = new AnalysisServer(server, executor, engines, workers, maxMillis);
+        server.createContext("/health", analysis::health);
+        server.createContext("/analyse", analysis::analyse);
+        server.setExecutor(executor);
+        server.start();
+        return analysis;
+    }
+
+    /**
+     * @return Der tatsächliche Port, z.B. nach einem Start mit Port 0.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int ttSizeMb = DEFAULT_TT_SIZE_MB;
+        long maxMillis = DEFAULT_MAX_MILLIS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--workers" -> workers = Integer.parseInt(args[i + 1]);
+                case "--tt" -> ttSizeMb = Integer.parseInt(args[i + 1]);
+                case "--max-millis" -> maxMillis = Long.parseLong(args[i + 1]);
+                default -> {
+                    System.err.println("usage: AnalysisServer [--port N] [--workers N] [--tt MB] [--max-millis MS]");
+                    System.exit(2);
+                }
+            }
+        }
+        AnalysisServer server = start(port, workers, ttSizeMb, maxMillis);
+        System.err.println("[analysis] listening on http://localhost:" + server.port() + " with " + workers + " workers");
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respond(exchange, 200, "ok " + workers + " workers\n");
+        }
+    }
+
+    private void analyse(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "POST a game record file\n");
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            long millis;
+            try {
+                millis = Math.min(maxMillis, Long.parseLong(query.getOrDefault("millis", String.valueOf(DEFAULT_MILLIS))));
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "Invalid millis: " + query.get("millis") + "\n");
+                return;
+            }
+            boolean all = query.getOrDefault("positions", "last").equals("all");
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, "Request body exceeds " + MAX_BODY_BYTES + " bytes\n");
+                return;
+            }
+
+            MinimaxAgent engine = engines.take();
+            try {
+                engine.setTimeManager(TimeManager.fixed(Math.max(1, millis)));
+                respond(exchange, 200, "text/csv", analyse(engine, body, all));
+            } catch (IOException | IllegalStateException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+            } catch (RuntimeException e) {
+                respond(exchange, 500, e + "\n");
+            } finally {
+                engines.add(engine);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Analysiert alle Stellungen der Partien im Body.
+     *
+     * @throws IOException           Wenn der Body keine Partiedatei ist.
+     * @throws IllegalStateException Wenn eine Partie einen ungültigen Zug enthält oder zu viele Stellungen
+     *                               verlangt werden.
+     */
+    private static String analyse(MinimaxAgent engine, byte[] body, boolean all) throws IOException {
+        StringBuilder csv = new StringBuilder("game,ply,").append(SearchRecord.CSV_HEADER).append(",pv\n");
+        try (GameRecordReader reader = GameRecordReader.wrap(ByteBuffer.wrap(body), "request")) {
+            int positions = 0;
+            for (int index = 0; index < reader.count(); index++) {
+                RecordedGame record = reader.get(index);
+                // Mit positions=all wird die Partie Zug für Zug weitergespielt statt für jede Stellung neu
+                int first = all ? 0 : record.moveCount();
+                Game position = record.replay(first);
+                for (int ply = first; ply <= record.moveCount(); ply++) {
+                    if (ply > first) {
+                        record.play(position, ply - 1);
+                    }
+                    if (position.isFinished()) {
+                        continue;
+                    }
+                    if (++positions > MAX_POSITIONS) {
+                        throw new IllegalStateException("More than " + MAX_POSITIONS + " positions in one request");
+                    }
+                    csv.append(index).append(',').append(ply).append(',').append(analysePosition(engine, position)).append('\n');
+                }
+            }
+        }
+        return csv.toString();
+    }
+
+    private static String analysePosition(MinimaxAgent engine, Game game) {
+        Optional<Placement> move = engine.calculateTurn(game.copy(), 0, 0);
+        SearchRecord record = move.isPresent() ? engine.getLastSearchRecord()
+                : new SearchRecord(game.lastTurn().getTurnNumber(), game.getCurrentPlayer(), null, 0, 0, 0,
+                List.of(), List.of(), new SearchStatistics());
+        return record.toCsv() + ",\"" + record.pv().stream().map(String::valueOf).collect(Collectors.joining(" ")) + "\"";
+    }
+
+    /**
+     * @return Der Body oder null, wenn er länger als {@link #MAX_BODY_BYTES} ist.
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            if (out.size() + read > MAX_BODY_BYTES) {
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, "text/plain", body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
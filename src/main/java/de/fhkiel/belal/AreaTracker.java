@@ -0,0 +1,233 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Inkrementelle Bewertungsgrundlage: Zellen pro Farbe (Gebäude und Besitz) und der daraus abgeleitete Score.
+ * Nach jedem takeTurn werden nur die Zellen gelesen, die sich geändert haben können: die Zellen des Gebäudes
+ * und, per Flutfüllung über geänderte Zellen, eroberte Gebiete samt entfernter Gebäude. Die Änderungen liegen
+ * auf einem Stapel und werden bei undo in O(geänderte Zellen) zurückgenommen.
+ */
+public class AreaTracker {
+    private static final int SIZE = 10;
+    private static final int CELLS = SIZE * SIZE;
+    private static final Color[] COLORS = Color.values();
+
+    private final Color[] cells = new Color[CELLS];
+    private final int[] counts = new int[COLORS.length];
+    // Zellen pro Farbe als Bitmasken, Aufteilung wie bei BitBoard
+    private final long[] low = new long[COLORS.length];
+    private final long[] high = new long[COLORS.length];
+    // Gesamtfläche aller Gebäude einer Farbe, also Score plus gesetzte Zellen
+    private final int[] totals = new int[COLORS.length];
+    private final int[] scoresAtReset = new int[COLORS.length];
+
+    private final int[] changedCells;
+    private final Color[] changedFrom;
+    private final int[] frameStart;
+    private final int[] queue = new int[CELLS];
+    private final boolean[] queued = new boolean[CELLS];
+    private int changeTop;
+    private int ply;
+
+    /**
+     * @param maxPly Die maximale Anzahl gleichzeitig angewendeter Züge.
+     */
+    public AreaTracker(int maxPly) {
+        changedCells = new int[CELLS * (maxPly + 1)];
+        changedFrom = new Color[CELLS * (maxPly + 1)];
+        frameStart = new int[maxPly + 1];
+    }
+
+    /**
+     * Übernimmt die Stellung vollständig. Danach sind alle Deltas null.
+     */
+    public void reset(Game game) {
+        Color[][] field = game.getBoard().getField();
+        Arrays.fill(counts, 0);
+        Arrays.fill(low, 0);
+        Arrays.fill(high, 0);
+        for (int cell = 0; cell < CELLS; cell++) {
+            cells[cell] = field[cell / SIZE][cell % SIZE];
+            counts[cells[cell].ordinal()]++;
+            toggle(cell, cells[cell]);
+        }
+        Map<Color, Integer> score = game.score();
+        for (Color color : COLORS) {
+            int value = score.getOrDefault(color, 0);
+            scoresAtReset[color.ordinal()] = value;
+            totals[color.ordinal()] = value + counts[color.ordinal()];
+        }
+        changeTop = 0;
+        ply = 0;
+    }
+
+    /**
+     * Übernimmt die Änderungen eines erfolgreich ausgeführten takeTurn.
+     *
+     * @param game      Das Spiel nach dem Zug.
+     * @param placement Der ausgeführte Zug.
+     */
+    public void apply(Game game, Placement placement) {
+        Color[][] field = game.getBoard().getField();
+        frameStart[ply++] = changeTop;
+
+        int footprint = Footprints.indexOf(placement);
+        if (footprint < 0) {
+            // Unbekannte Platzierung: alle Zellen vergleichen
+            for (int cell = 0; cell < CELLS; cell++) {
+                record(cell, field[cell / SIZE][cell % SIZE]);
+            }
+            return;
+        }
+
+        // Die Zellen des Gebäudes ändern sich immer, eroberte Gebiete grenzen an das Gebäude
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            long mask = cell < 64 ? Footprints.low(footprint) >>> cell : Footprints.high(footprint) >>> (cell - 64);
+            if ((mask & 1L) != 0) {
+                queue[tail++] = cell;
+                queued[cell] = true;
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            if (!record(cell, field[cell / SIZE][cell % SIZE])) {
+                continue;
+            }
+            int x = cell % SIZE;
+            int y = cell / SIZE;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    int ny = y + dy;
+                    if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE) {
+                        continue;
+                    }
+                    int neighbour = ny * SIZE + nx;
+                    if (!queued[neighbour]) {
+                        queued[neighbour] = true;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < tail; i++) {
+            queued[queue[i]] = false;
+        }
+    }
+
+    /**
+     * Nimmt den zuletzt angewendeten Zug zurück.
+     */
+    public void undo() {
+        int start = frameStart[--ply];
+        while (changeTop > start) {
+            changeTop--;
+            int cell = changedCells[changeTop];
+            counts[cells[cell].ordinal()]--;
+            toggle(cell, cells[cell]);
+            cells[cell] = changedFrom[changeTop];
+            counts[cells[cell].ordinal()]++;
+            toggle(cell, cells[cell]);
+        }
+    }
+
+    /**
+     * @return Die Anzahl der Zellen im Besitz des Spielers.
+     */
+    public int ownedArea(Color player) {
+        Color owned = player.subColor();
+        return owned == Color.None ? 0 : counts[owned.ordinal()];
+    }
+
+    /**
+     * @return Die Anzahl der Zellen, die mit Gebäuden des Spielers belegt sind.
+     */
+    public int pieceCells(Color player) {
+        return counts[player.ordinal()];
+    }
+
+    /**
+     * @return Der Score des Spielers wie bei {@link Game#score()}, also die Fläche der nicht gesetzten Gebäude.
+     */
+    public int score(Color player) {
+        return totals[player.ordinal()] - counts[player.ordinal()];
+    }
+
+    /**
+     * @return Die Änderung des Scores seit dem letzten reset; positiv heißt, der Spieler hat Fläche verloren.
+     */
+    public int scoreDelta(Color player) {
+        return score(player) - scoresAtReset[player.ordinal()];
+    }
+
+    public Color cell(int x, int y) {
+        return cells[y * SIZE + x];
+    }
+
+    /**
+     * @return Die Zellen 0 bis 63 der Farbe als Bitmaske.
+     */
+    public long low(Color color) {
+        return low[color.ordinal()];
+    }
+
+    /**
+     * @return Die Zellen 64 bis 99 der Farbe als Bitmaske.
+     */
+    public long high(Color color) {
+        return high[color.ordinal()];
+    }
+
+    /**
+     * @return Die Anzahl der Zellen, die der zuletzt angewendete Zug geändert hat.
+     */
+    public int lastChangeCount() {
+        return changeTop - frameStart[ply - 1];
+    }
+
+    /**
+     * @return Die i-te geänderte Zelle (y * 10 + x) des zuletzt angewendeten Zuges.
+     */
+    public int lastChangedCell(int i) {
+        return changedCells[frameStart[ply - 1] + i];
+    }
+
+    /**
+     * @return Die Farbe der i-ten geänderten Zelle vor dem zuletzt angewendeten Zug.
+     */
+    public Color lastChangedFrom(int i) {
+        return changedFrom[frameStart[ply - 1] + i];
+    }
+
+    private boolean record(int cell, Color now) {
+        Color old = cells[cell];
+        if (old == now) {
+            return false;
+        }
+        changedCells[changeTop] = cell;
+        changedFrom[changeTop] = old;
+        changeTop++;
+        counts[old.ordinal()]--;
+        counts[now.ordinal()]++;
+        toggle(cell, old);
+        toggle(cell, now);
+        cells[cell] = now;
+        return true;
+    }
+
+    private void toggle(int cell, Color color) {
+        if (cell < 64) {
+            low[color.ordinal()] ^= 1L << cell;
+        } else {
+            high[color.ordinal()] ^= 1L << (cell - 64);
+        }
+    }
+}
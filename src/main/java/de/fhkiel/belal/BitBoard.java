@@ -0,0 +1,144 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Board;
+import de.fhkiel.ki.cathedral.game.Color;
+
+/**
+ * Allokationsfreie Darstellung des 10x10-Bretts.
+ * Pro Farbe bzw. Besitz gibt es eine Ebene aus zwei longs: low enthält die Zellen 0 bis 63,
+ * high die Zellen 64 bis 99 (Zelle = y * 10 + x). Legalitätsprüfung und Platzierung sind damit
+ * wenige AND/OR-Operationen auf den Masken aus {@link Footprints}.
+ * Eroberungen von Gebieten bildet das BitBoard nicht nach, dafür bleibt das Spiel zuständig.
+ */
+public final class BitBoard {
+    private static final int SIZE = 10;
+    private static final Color[] COLORS = Color.values();
+
+    private final long[] low = new long[COLORS.length];
+    private final long[] high = new long[COLORS.length];
+
+    /**
+     * Erzeugt ein BitBoard mit dem Inhalt des übergebenen Bretts.
+     */
+    public static BitBoard of(Board board) {
+        BitBoard bitBoard = new BitBoard();
+        bitBoard.load(board.getField());
+        return bitBoard;
+    }
+
+    /**
+     * Übernimmt den Inhalt eines Spielfelds, ohne neue Objekte anzulegen.
+     *
+     * @param field Das Spielfeld im Format von {@link Board#getField()}, also [y][x].
+     */
+    public void load(Color[][] field) {
+        for (int c = 0; c < COLORS.length; c++) {
+            low[c] = 0;
+            high[c] = 0;
+        }
+        for (int y = 0; y < SIZE; ++y) {
+            for (int x = 0; x < SIZE; ++x) {
+                int cell = y * SIZE + x;
+                int color = field[y][x].ordinal();
+                if (cell < 64) {
+                    low[color] |= 1L << cell;
+                } else {
+                    high[color] |= 1L << (cell - 64);
+                }
+            }
+        }
+    }
+
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.low, 0, low, 0, low.length);
+        System.arraycopy(other.high, 0, high, 0, high.length);
+    }
+
+    public Color get(int x, int y) {
+        int cell = y * SIZE + x;
+        for (int c = 0; c < COLORS.length; c++) {
+            long layer = cell < 64 ? low[c] >>> cell : high[c] >>> (cell - 64);
+            if ((layer & 1L) != 0) {
+                return COLORS[c];
+            }
+        }
+        return Color.None;
+    }
+
+    public long low(Color color) {
+        return low[color.ordinal()];
+    }
+
+    public long high(Color color) {
+        return high[color.ordinal()];
+    }
+
+    /**
+     * @return Die Anzahl der Zellen mit der übergebenen Farbe.
+     */
+    public int count(Color color) {
+        return Long.bitCount(low[color.ordinal()]) + Long.bitCount(high[color.ordinal()]);
+    }
+
+    /**
+     * Prüft, ob eine Platzierung nach den Regeln des Bretts möglich ist: Alle Zellen müssen frei
+     * oder im eigenen Besitz sein. Ob das Gebäude noch verfügbar ist, prüft der Aufrufer.
+     *
+     * @param footprint Der Index aus {@link Footprints}.
+     */
+    public boolean canPlace(int footprint) {
+        Color own = Footprints.building(footprint).getColor().subColor();
+        long freeLow = low[Color.None.ordinal()];
+        long freeHigh = high[Color.None.ordinal()];
+        if (own != Color.None) {
+            freeLow |= low[own.ordinal()];
+            freeHigh |= high[own.ordinal()];
+        }
+        return (Footprints.low(footprint) & ~freeLow) == 0 && (Footprints.high(footprint) & ~freeHigh) == 0;
+    }
+
+    /**
+     * Setzt die Zellen einer Platzierung auf die Farbe des Gebäudes. Eroberungen werden nicht berechnet.
+     *
+     * @param footprint Der Index aus {@link Footprints}.
+     */
+    public void place(int footprint) {
+        long maskLow = Footprints.low(footprint);
+        long maskHigh = Footprints.high(footprint);
+        for (int c = 0; c < COLORS.length; c++) {
+            low[c] &= ~maskLow;
+            high[c] &= ~maskHigh;
+        }
+        int color = Footprints.building(footprint).getColor().ordinal();
+        low[color] |= maskLow;
+        high[color] |= maskHigh;
+    }
+
+    /**
+     * Wandelt das BitBoard in ein Spielfeld im Format von {@link Board#getField()} um.
+     */
+    public Color[][] toField() {
+        Color[][] field = new Color[SIZE][SIZE];
+        for (int y = 0; y < SIZE; ++y) {
+            for (int x = 0; x < SIZE; ++x) {
+                field[y][x] = get(x, y);
+            }
+        }
+        return field;
+    }
+
+    /**
+     * @return true, wenn jede Zelle mit dem übergebenen Brett übereinstimmt.
+     */
+    public boolean matches(Board board) {
+        Color[][] field = board.getField();
+        for (int y = 0; y < SIZE; ++y) {
+            for (int x = 0; x < SIZE; ++x) {
+                if (field[y][x] != get(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,283 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.Optional;
+
+/**
+ * Exakter Endspiel-Löser. Sobald nur noch wenige Gebäude passen oder wenige Felder frei sind, wird bis zum
+ * Spielende gesucht und das Endergebnis als Score verwendet statt einer heuristischen Bewertung.
+ * <p>
+ * Zuerst wird mit dem Nullfenster um 0 nur bewiesen, ob die Stellung gewonnen, unentschieden oder verloren
+ * ist. Bleibt danach Zeit, wird der genaue Vorsprung berechnet. Der Löser hat eine eigene
+ * Transpositionstabelle; alle Einträge sind bis zum Spielende gerechnet und gelten unabhängig von der Tiefe.
+ */
+public class EndgameSolver {
+    public static final int DEFAULT_MAX_BUILDINGS = 6;
+    public static final int DEFAULT_MAX_EMPTY_CELLS = 16;
+    public static final int DEFAULT_CACHE_MB = 16;
+
+    /** Maximale Anzahl an Zügen bis zum Spielende, mehr Gebäude gibt es nicht. */
+    private static final int MAX_PLY = 64;
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    private final int maxBuildings;
+    private final int maxEmptyCells;
+    private final TranspositionTable cache;
+    private final AreaTracker areas = new AreaTracker(MAX_PLY);
+    private final ZobristHash zobrist = new ZobristHash(MAX_PLY);
+    private final MoveGenerator generator = new MoveGenerator(MAX_PLY);
+    private final MoveOrdering ordering = new MoveOrdering(MAX_PLY);
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][Footprints.count()];
+
+    private Game game;
+    private Color player;
+    private Color opponent;
+    // Die Scores im Cache gelten aus Sicht des Spielers an der Wurzel, beide Farben haben eigene Schlüssel
+    private long rootKey;
+    private long deadline;
+    private long nodes;
+
+    public EndgameSolver() {
+        this(DEFAULT_MAX_BUILDINGS, DEFAULT_MAX_EMPTY_CELLS, DEFAULT_CACHE_MB);
+    }
+
+    /**
+     * @param maxBuildings  Der Löser greift, wenn höchstens so viele Gebäude beider Spieler noch passen.
+     * @param maxEmptyCells Der Löser greift auch, wenn höchstens so viele Felder frei sind.
+     * @param cacheMb       Die Größe der eigenen Transpositionstabelle in Megabyte.
+     */
+    public EndgameSolver(int maxBuildings, int maxEmptyCells, int cacheMb) {
+        this.maxBuildings = maxBuildings;
+        this.maxEmptyCells = maxEmptyCells;
+        this.cache = new TranspositionTable(cacheMb);
+    }
+
+    /**
+     * @return Ob die Stellung klein genug für den Löser ist.
+     */
+    public boolean applies(Game game) {
+        if (game.isFinished() || (game.getCurrentPlayer() != Color.Black && game.getCurrentPlayer() != Color.White)) {
+            return false;
+        }
+        prepare(game);
+        if (Long.bitCount(areas.low(Color.None)) + Long.bitCount(areas.high(Color.None)) <= maxEmptyCells) {
+            return true;
+        }
+        return fittingBuildings(Color.Black) + fittingBuildings(Color.White) <= maxBuildings;
+    }
+
+    /**
+     * Löst die Stellung für den Spieler am Zug.
+     *
+     * @param game     Das Spiel, es ist danach unverändert.
+     * @param deadline Der Zeitpunkt in Millisekunden, zu dem die Suche aufgibt.
+     * @return Die Lösung oder leer, wenn nicht einmal Sieg oder Niederlage bewiesen werden konnte.
+     */
+    public Optional<Solution> solve(Game game, long deadline) {
+        prepare(game);
+        this.deadline = deadline;
+        nodes = 0;
+        ordering.newSearch();
+        Solution solution = null;
+        try {
+            RootResult outcome = searchRoot(-1, 1);
+            solution = new Solution(outcome.move(), Integer.signum(outcome.score()), false, nodes);
+            RootResult exact = searchRoot(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            solution = new Solution(exact.move(), exact.score(), true, nodes);
+        } catch (SolverTimeoutException e) {
+            // Das Spiel ist durch die finally-Blöcke wiederhergestellt
+        }
+        return Optional.ofNullable(solution);
+    }
+
+    private void prepare(Game game) {
+        this.game = game;
+        player = game.getCurrentPlayer();
+        opponent = player == Color.Black ? Color.White : Color.Black;
+        rootKey = ZobristHash.rootKey(player);
+        areas.reset(game);
+        zobrist.reset(game);
+        generator.reset(areas);
+    }
+
+    private int fittingBuildings(Color color) {
+        int[] moves = moveBuffers[0];
+        int count = generator.generate(color, zobrist, moves);
+        boolean[] seen = new boolean[Building.values().length];
+        int buildings = 0;
+        for (int i = 0; i < count; i++) {
+            Building building = Footprints.building(moves[i]);
+            if (!seen[building.ordinal()]) {
+                seen[building.ordinal()] = true;
+                buildings += zobrist.unplaced(building);
+            }
+        }
+        return buildings;
+    }
+
+    private RootResult searchRoot(int alpha, int beta) {
+        int[] moves = moveBuffers[0];
+        int count = generator.generate(player, zobrist, moves);
+        long entry = cache.probe(zobrist.canonical() ^ rootKey);
+        ordering.order(moves, count, 0, -1, tableMove(entry), areas, player);
+
+        int bestScore = Integer.MIN_VALUE;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (!play(move)) {
+                continue;
+            }
+            int score;
+            try {
+                score = solve(1, Math.max(alpha, bestScore), beta);
+            } finally {
+                unplay();
+            }
+            if (bestMove < 0 || score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            if (bestScore >= beta) {
+                break;
+            }
+        }
+        if (bestMove < 0) {
+            throw new IllegalStateException("No legal move in endgame");
+        }
+        return new RootResult(Footprints.placement(bestMove), bestScore);
+    }
+
+    /**
+     * Alpha-Beta bis zum Spielende in der Max/Min-Form des MinimaxAgent.
+     *
+     * @return Der Vorsprung des Spielers an der Wurzel am Spielende.
+     */
+    private int solve(int ply, int alpha, int beta) {
+        if ((++nodes & (CLOCK_CHECK_INTERVAL - 1)) == 0 && System.currentTimeMillis() >= deadline) {
+            throw new SolverTimeoutException();
+        }
+        if (game.isFinished() || ply >= MAX_PLY) {
+            return margin();
+        }
+        long key = zobrist.canonical() ^ rootKey;
+        long entry = cache.probe(key);
+        int hashMove = -1;
+        if (entry != 0) {
+            hashMove = tableMove(entry);
+            int cached = TranspositionTable.score(entry);
+            byte bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && cached >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && cached <= alpha)) {
+                return cached;
+            }
+        }
+
+        Color sideToMove = game.getCurrentPlayer();
+        boolean maximizing = sideToMove == player;
+        int alphaOrig = alpha;
+        int betaOrig = beta;
+        int bestScore = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = -1;
+
+        int[] moves = moveBuffers[ply];
+        int count = generator.generate(sideToMove, zobrist, moves);
+        ordering.order(moves, count, ply, -1, hashMove, areas, sideToMove);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (!play(move)) {
+                continue;
+            }
+            int score;
+            try {
+                score = solve(ply + 1, alpha, beta);
+            } finally {
+                unplay();
+            }
+            if (bestMove < 0 || (maximizing ? score > bestScore : score < bestScore)) {
+                bestScore = score;
+                bestMove = move;
+            }
+            if (maximizing) {
+                alpha = Math.max(alpha, bestScore);
+            } else {
+                beta = Math.min(beta, bestScore);
+            }
+            if (beta <= alpha) {
+                ordering.cutoff(move, ply, MAX_PLY - ply);
+                break;
+            }
+        }
+        if (bestMove < 0) {
+            // Das Spiel hat keinen Zug angenommen, die Stellung ist praktisch beendet
+            return margin();
+        }
+
+        byte bound = bestScore <= alphaOrig ? TranspositionTable.UPPER_BOUND
+                : bestScore >= betaOrig ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+        cache.store(key, 0, bound, bestScore, Symmetry.move(zobrist.transform(), bestMove));
+        return bestScore;
+    }
+
+    /**
+     * @return Der Zug eines Cache-Eintrags, aus der kanonischen Lage in die aktuelle Stellung abgebildet, oder -1.
+     */
+    private int tableMove(long entry) {
+        return entry == 0 ? -1 : Symmetry.move(Symmetry.inverse(zobrist.transform()), TranspositionTable.moveIndex(entry));
+    }
+
+    /**
+     * Das Endergebnis wie bei {@link Game#score()}: weniger verbleibende Fläche ist besser. Der AreaTracker
+     * führt genau diesen Score inkrementell mit, deshalb wird die Map von Game.score nicht bei jedem Blatt gebaut.
+     */
+    private int margin() {
+        return areas.score(opponent) - areas.score(player);
+    }
+
+    private boolean play(int move) {
+        Placement placement = Footprints.placement(move);
+        if (!game.takeTurn(placement)) {
+            return false;
+        }
+        areas.apply(game, placement);
+        generator.apply(areas);
+        zobrist.push();
+        zobrist.update(game, placement, areas);
+        return true;
+    }
+
+    private void unplay() {
+        game.undoLastTurn();
+        areas.undo();
+        generator.undo();
+        zobrist.pop();
+    }
+
+    /**
+     * Ergebnis des Lösers.
+     *
+     * @param move   Der beste Zug.
+     * @param margin Der Vorsprung am Spielende; ohne exact nur das Vorzeichen (1 Sieg, 0 Unentschieden, -1 Niederlage).
+     * @param exact  Ob der genaue Vorsprung berechnet wurde.
+     * @param nodes  Die Anzahl der durchsuchten Knoten.
+     */
+    public record Solution(Placement move, int margin, boolean exact, long nodes) {
+    }
+
+    private record RootResult(Placement move, int score) {
+    }
+
+    private static final class SolverTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SolverTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+}
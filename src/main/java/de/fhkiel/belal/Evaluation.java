@@ -0,0 +1,213 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Lineare Stellungsbewertung über einen Merkmalsvektor. Die Merkmale werden aus dem {@link AreaTracker}
+ * gelesen, die Bewertung kostet also kein Durchsuchen des Bretts. Die Gewichte stammen aus einer
+ * Properties-Datei (Merkmalsname = Gewicht), die {@link EvaluationTuner} aus gespeicherten Partien erzeugt.
+ * <p>
+ * Bewertet wird in Hundertstel Feldern aus Sicht eines Spielers. Die Standardgewichte entsprechen der
+ * bisherigen Bewertung: eigenes Gebiet plus gesetzte eigene Fläche.
+ * <p>
+ * Die Merkmale über leere Regionen liefert ein {@link RegionTracker}. Er wird nur gebraucht, wenn eines
+ * dieser Merkmale ein Gewicht hat, siehe {@link #usesRegions()}.
+ */
+public final class Evaluation {
+    /** Standarddatei, falls die System-Property belal.weights nicht gesetzt ist. */
+    public static final String DEFAULT_FILE = "evaluation.properties";
+    /** Ein Gewicht von 1 entspricht einem Feld. */
+    public static final int SCALE = 100;
+
+    /**
+     * Die Merkmale einer Stellung aus Sicht des bewerteten Spielers.
+     */
+    public enum Feature {
+        /** Felder im Besitz des Spielers. */
+        OWN_AREA,
+        /** Felder im Besitz des Gegners. */
+        OPPONENT_AREA,
+        /** Die noch nicht gesetzte Fläche des Spielers, negiert: je mehr gesetzt, desto besser. */
+        OWN_SCORE,
+        /** Die noch nicht gesetzte Fläche des Gegners. */
+        OPPONENT_SCORE,
+        /** 1, wenn der Spieler am Zug ist, sonst 0. */
+        TEMPO,
+        /** Freie Zellen in Regionen, in die nur noch der Spieler ein Gebäude setzen kann. */
+        OWN_RESERVED,
+        /** Freie Zellen in Regionen, in die nur noch der Gegner ein Gebäude setzen kann. */
+        OPPONENT_RESERVED,
+        /** Gebäudezellen des Spielers an Regionen, in die nur noch der Gegner setzen kann. */
+        OWN_THREATENED,
+        /** Gebäudezellen des Gegners an Regionen, in die nur noch der Spieler setzen kann. */
+        OPPONENT_THREATENED;
+
+        /** Die Merkmale, die einen {@link RegionTracker} brauchen. */
+        private static final Feature[] REGION = {OWN_RESERVED, OPPONENT_RESERVED, OWN_THREATENED, OPPONENT_THREATENED};
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final Feature[] FEATURES = Feature.values();
+
+    private final double[] weights;
+    private final int[] scaled;
+
+    /**
+     * @param weights Die Gewichte in der Reihenfolge von {@link Feature}.
+     */
+    public Evaluation(double[] weights) {
+        if (weights.length != FEATURES.length) {
+            throw new IllegalArgumentException("Expected " + FEATURES.length + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+        this.scaled = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            scaled[i] = (int) Math.round(weights[i] * SCALE);
+        }
+    }
+
+    public static Evaluation defaults() {
+        double[] weights = new double[FEATURES.length];
+        weights[Feature.OWN_AREA.ordinal()] = 1;
+        weights[Feature.OWN_SCORE.ordinal()] = 1;
+        return new Evaluation(weights);
+    }
+
+    /**
+     * Liest Gewichte aus einer Properties-Datei. Fehlende Merkmale erhalten das Standardgewicht.
+     *
+     * @throws IOException Wenn die Datei nicht lesbar ist oder ein Gewicht keine Zahl ist.
+     */
+    public static Evaluation load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        double[] weights = defaults().weights();
+        for (Feature feature : FEATURES) {
+            String value = properties.getProperty(feature.key);
+            if (value != null) {
+                try {
+                    weights[feature.ordinal()] = Double.parseDouble(value.trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid weight for " + feature.key + " in " + path + ": " + value);
+                }
+            }
+        }
+        return new Evaluation(weights);
+    }
+
+    /**
+     * Lädt die Gewichte aus der System-Property belal.weights oder aus {@link #DEFAULT_FILE}. Fehlt die Datei
+     * oder ist sie unbrauchbar, gelten die Standardgewichte.
+     */
+    public static Evaluation loadDefault() {
+        Path path = Path.of(System.getProperty("belal.weights", DEFAULT_FILE));
+        if (!Files.isRegularFile(path)) {
+            return defaults();
+        }
+        try {
+            return load(path);
+        } catch (IOException e) {
+            System.err.println("[evaluation] " + e.getMessage());
+            return defaults();
+        }
+    }
+
+    /**
+     * Schreibt die Gewichte als Properties-Datei.
+     *
+     * @param comment Eine Kommentarzeile für den Dateikopf, z.B. Herkunft und Fehler des Tunings.
+     */
+    public void store(Path path, String comment) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            writer.write("# " + comment + System.lineSeparator());
+            for (Feature feature : FEATURES) {
+                writer.write(feature.key + " = " + weights[feature.ordinal()] + System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * @return Eine Kopie der Gewichte in der Reihenfolge von {@link Feature}.
+     */
+    public double[] weights() {
+        return weights.clone();
+    }
+
+    /**
+     * @return true, wenn ein Merkmal über leere Regionen ein Gewicht hat und der RegionTracker gepflegt werden muss.
+     */
+    public boolean usesRegions() {
+        for (Feature feature : Feature.REGION) {
+            if (scaled[feature.ordinal()] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Schreibt die Merkmale der Stellung in features.
+     *
+     * @param areas      Die Flächen der Stellung.
+     * @param regions    Die leeren Regionen derselben Stellung.
+     * @param player     Der Spieler, aus dessen Sicht bewertet wird.
+     * @param sideToMove Der Spieler am Zug.
+     * @param features   Ein Array mit einem Platz pro {@link Feature}.
+     */
+    public static void features(AreaTracker areas, RegionTracker regions, Color player, Color sideToMove, int[] features) {
+        Color opponent = player == Color.Black ? Color.White : Color.Black;
+        features[Feature.OWN_AREA.ordinal()] = areas.ownedArea(player);
+        features[Feature.OPPONENT_AREA.ordinal()] = areas.ownedArea(opponent);
+        features[Feature.OWN_SCORE.ordinal()] = -areas.score(player);
+        features[Feature.OPPONENT_SCORE.ordinal()] = areas.score(opponent);
+        features[Feature.TEMPO.ordinal()] = sideToMove == player ? 1 : 0;
+        features[Feature.OWN_RESERVED.ordinal()] = regions.reservedArea(player);
+        features[Feature.OPPONENT_RESERVED.ordinal()] = regions.reservedArea(opponent);
+        features[Feature.OWN_THREATENED.ordinal()] = regions.threatenedCells(player, areas);
+        features[Feature.OPPONENT_THREATENED.ordinal()] = regions.threatenedCells(opponent, areas);
+    }
+
+    /**
+     * Bewertet die Stellung. Die Merkmale werden direkt verrechnet, ohne Zwischenarray.
+     *
+     * @param regions Die leeren Regionen oder null, wenn {@link #usesRegions()} false ist.
+     * @return Die Bewertung in Hundertstel Feldern, siehe {@link #SCALE}.
+     */
+    public int evaluate(AreaTracker areas, RegionTracker regions, Color player, Color sideToMove) {
+        Color opponent = player == Color.Black ? Color.White : Color.Black;
+        int value = scaled[Feature.OWN_AREA.ordinal()] * areas.ownedArea(player)
+                + scaled[Feature.OPPONENT_AREA.ordinal()] * areas.ownedArea(opponent)
+                - scaled[Feature.OWN_SCORE.ordinal()] * areas.score(player)
+                + scaled[Feature.OPPONENT_SCORE.ordinal()] * areas.score(opponent)
+                + (sideToMove == player ? scaled[Feature.TEMPO.ordinal()] : 0);
+        if (regions == null) {
+            return value;
+        }
+        return value
+                + scaled[Feature.OWN_RESERVED.ordinal()] * regions.reservedArea(player)
+                + scaled[Feature.OPPONENT_RESERVED.ordinal()] * regions.reservedArea(opponent)
+                + scaled[Feature.OWN_THREATENED.ordinal()] * regions.threatenedCells(player, areas)
+                + scaled[Feature.OPPONENT_THREATENED.ordinal()] * regions.threatenedCells(opponent, areas);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Feature feature : FEATURES) {
+            builder.append(builder.length() == 0 ? "" : ", ").append(feature.key).append('=')
+                    .append(String.format(Locale.ROOT, "%.3f", weights[feature.ordinal()]));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,270 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Texel-Tuning der Gewichte von {@link Evaluation} über gespeicherte Partien von {@link GameRecordReader}.
+ * Jede Stellung geht aus Sicht beider Spieler mit dem Endergebnis der Partie ein (Sieg 1, Unentschieden 0.5,
+ * Niederlage 0). Minimiert wird der mittlere quadratische Fehler zwischen Ergebnis und sigmoid(k * Bewertung).
+ * Zuerst wird k für die Startgewichte bestimmt, danach werden die Gewichte per Gradientenabstieg angepasst.
+ * <p>
+ * Merkmalsextraktion und Gradient laufen im gemeinsamen Fork-Join-Pool auf allen Kernen. Jede Partie wird einmal
+ * auf einem eigenen Game nachgespielt, die Merkmale werden pro Stellung über AreaTracker und RegionTracker
+ * gelesen, ohne das Spiel zu kopieren.
+ * <p>
+ * Aufruf: {@code EvaluationTuner <records> [--out FILE] [--iterations N] [--skip PLIES]}
+ */
+public final class EvaluationTuner {
+    private static final int FEATURES = Evaluation.Feature.values().length;
+    private static final int TASK_POSITIONS = 4096;
+
+    private final int[] features;
+    private final double[] results;
+    private final int size;
+
+    /**
+     * @param features Die Merkmale aller Stellungen hintereinander, {@link Evaluation.Feature} pro Stellung.
+     * @param results  Das Endergebnis pro Stellung aus Sicht des bewerteten Spielers.
+     */
+    EvaluationTuner(int[] features, double[] results) {
+        this.features = features;
+        this.results = results;
+        this.size = results.length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: EvaluationTuner <records> [--out FILE] [--iterations N] [--skip PLIES]");
+            System.exit(2);
+        }
+        String out = Evaluation.DEFAULT_FILE;
+        int iterations = 200;
+        int skip = 2;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--out" -> out = args[i + 1];
+                case "--iterations" -> iterations = Integer.parseInt(args[i + 1]);
+                case "--skip" -> skip = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        EvaluationTuner tuner;
+        try (GameRecordReader reader = GameRecordReader.open(Path.of(args[0]))) {
+            tuner = extract(reader, skip);
+        }
+        System.out.println("[tuner] " + tuner.size + " positions extracted in " + (System.currentTimeMillis() - start) + " ms");
+        if (tuner.size == 0) {
+            return;
+        }
+
+        Evaluation initial = Evaluation.defaults();
+        double k = tuner.fitScale(initial.weights());
+        double before = tuner.loss(initial.weights(), k);
+        Evaluation tuned = tuner.tune(initial, k, iterations);
+        double after = tuner.loss(tuned.weights(), k);
+        String summary = String.format(Locale.ROOT, "tuned on %d positions from %s, k %.4f, loss %.5f -> %.5f",
+                tuner.size, args[0], k, before, after);
+        tuned.store(Path.of(out), summary);
+        System.out.println("[tuner] " + summary);
+        System.out.println("[tuner] " + tuned + " written to " + out);
+    }
+
+    /**
+     * Liest die Merkmale aller Stellungen ab dem angegebenen Zug, parallel über die Partien.
+     *
+     * @param skip Die Anzahl der Züge ab Spielbeginn, die nicht eingehen (Kathedrale, Eröffnung).
+     */
+    public static EvaluationTuner extract(GameRecordReader reader, int skip) {
+        List<Positions> perGame = IntStream.range(0, reader.count()).parallel()
+                .mapToObj(i -> extract(reader.get(i), skip))
+                .toList();
+        int total = perGame.stream().mapToInt(p -> p.results().length).sum();
+        int[] features = new int[total * FEATURES];
+        double[] results = new double[total];
+        int position = 0;
+        for (Positions positions : perGame) {
+            System.arraycopy(positions.features(), 0, features, position * FEATURES, positions.features().length);
+            System.arraycopy(positions.results(), 0, results, position, positions.results().length);
+            position += positions.results().length;
+        }
+        return new EvaluationTuner(features, results);
+    }
+
+    /**
+     * Spielt eine Partie nach und liest nach jedem Zug die Merkmale aus Sicht beider Spieler.
+     */
+    private static Positions extract(RecordedGame record, int skip) {
+        int black = record.score(Color.Black);
+        int white = record.score(Color.White);
+        double blackResult = black < white ? 1.0 : black == white ? 0.5 : 0.0;
+        int count = Math.max(0, record.moveCount() - skip + 1);
+        int[] features = new int[2 * count * FEATURES];
+        double[] results = new double[2 * count];
+        int[] buffer = new int[FEATURES];
+
+        Game game = new Game();
+        AreaTracker areas = new AreaTracker(0);
+        RegionTracker regions = new RegionTracker(0);
+        int position = 0;
+        for (int ply = 0; ply <= record.moveCount(); ply++) {
+            if (ply >= skip) {
+                areas.reset(game);
+                regions.reset(game, areas);
+                for (Color player : new Color[]{Color.Black, Color.White}) {
+                    Evaluation.features(areas, regions, player, game.getCurrentPlayer(), buffer);
+                    System.arraycopy(buffer, 0, features, position * FEATURES, FEATURES);
+                    results[position++] = player == Color.Black ? blackResult : 1.0 - blackResult;
+                }
+            }
+            if (ply == record.moveCount() || game.isFinished()) {
+                break;
+            }
+            Placement placement = record.move(ply);
+            if (placement == null) {
+                game.forfeitTurn();
+            } else if (!game.takeTurn(placement)) {
+                // Die Aufzeichnung passt nicht zu dieser Spielversion, die Partie wird verworfen
+                return new Positions(new int[0], new double[0]);
+            }
+        }
+        return new Positions(Arrays.copyOf(features, position * FEATURES), Arrays.copyOf(results, position));
+    }
+
+    /**
+     * Bestimmt k so, dass die Startgewichte den kleinsten Fehler haben. Damit bleibt die Skala der Gewichte
+     * beim Tuning erhalten.
+     */
+    double fitScale(double[] weights) {
+        double best = 0;
+        double bestLoss = Double.MAX_VALUE;
+        for (double k = 0.001; k < 10; k *= 1.1) {
+            double loss = loss(weights, k);
+            if (loss < bestLoss) {
+                bestLoss = loss;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return Der mittlere quadratische Fehler der Gewichte.
+     */
+    double loss(double[] weights, double k) {
+        return new GradientTask(weights, k, 0, size, false).invoke()[FEATURES] / size;
+    }
+
+    /**
+     * Gradientenabstieg mit Schrittweitensteuerung. Jedes Merkmal wird mit seinem mittleren Quadrat
+     * normiert, damit Merkmale mit kleinem Wertebereich (etwa TEMPO) nicht zu langsam lernen.
+     */
+    Evaluation tune(Evaluation initial, double k, int iterations) {
+        double[] scale = new double[FEATURES];
+        for (int p = 0; p < size; p++) {
+            for (int f = 0; f < FEATURES; f++) {
+                double value = features[p * FEATURES + f];
+                scale[f] += value * value / size;
+            }
+        }
+
+        double[] weights = initial.weights();
+        double[] sums = new GradientTask(weights, k, 0, size, true).invoke();
+        double loss = sums[FEATURES] / size;
+        double rate = 1;
+        for (int iteration = 0; iteration < iterations && rate > 1e-9; iteration++) {
+            double[] candidate = weights.clone();
+            for (int f = 0; f < FEATURES; f++) {
+                candidate[f] -= rate * sums[f] / size / Math.max(scale[f], 1e-9);
+            }
+            double[] candidateSums = new GradientTask(candidate, k, 0, size, true).invoke();
+            double candidateLoss = candidateSums[FEATURES] / size;
+            if (candidateLoss < loss) {
+                weights = candidate;
+                sums = candidateSums;
+                loss = candidateLoss;
+                rate *= 1.2;
+            } else {
+                rate *= 0.5;
+            }
+        }
+        return new Evaluation(weights);
+    }
+
+    private static double sigmoid(double x) {
+        return 1 / (1 + Math.exp(-x));
+    }
+
+    /**
+     * Die Merkmale und Ergebnisse einer Partie.
+     */
+    private record Positions(int[] features, double[] results) {
+    }
+
+    /**
+     * Summiert Fehler und Gradient über einen Bereich von Stellungen. Ergebnis: Gradient pro Merkmal, an
+     * letzter Stelle der quadratische Fehler.
+     */
+    private final class GradientTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] weights;
+        private final double k;
+        private final int from;
+        private final int to;
+        private final boolean gradient;
+
+        GradientTask(double[] weights, double k, int from, int to, boolean gradient) {
+            this.weights = weights;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+            this.gradient = gradient;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > TASK_POSITIONS) {
+                int middle = (from + to) >>> 1;
+                GradientTask left = new GradientTask(weights, k, from, middle, gradient);
+                left.fork();
+                double[] right = new GradientTask(weights, k, middle, to, gradient).compute();
+                double[] sums = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += right[i];
+                }
+                return sums;
+            }
+            double[] sums = new double[FEATURES + 1];
+            for (int p = from; p < to; p++) {
+                int offset = p * FEATURES;
+                double evaluation = 0;
+                for (int f = 0; f < FEATURES; f++) {
+                    evaluation += weights[f] * features[offset + f];
+                }
+                double predicted = sigmoid(k * evaluation);
+                double error = results[p] - predicted;
+                sums[FEATURES] += error * error;
+                if (gradient) {
+                    // d/dw (r - s)^2 = -2 (r - s) s (1 - s) k f
+                    double factor = -2 * error * predicted * (1 - predicted) * k;
+                    for (int f = 0; f < FEATURES; f++) {
+                        sums[f] += factor * features[offset + f];
+                    }
+                }
+            }
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Board;
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Direction;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vorberechnete Belegungsmasken aller Platzierungen (Building x Direction x Position), die auf das Brett passen.
+ * Jede Platzierung erhält einen festen Index, ihre Maske ist wie in {@link BitBoard} auf zwei longs verteilt.
+ * Die Masken werden einmalig mit {@link Board#placeBuilding(Placement)} auf einem leeren Brett abgeleitet,
+ * sie stimmen also per Konstruktion mit der Bibliothek überein.
+ */
+public final class Footprints {
+    private static final int SIZE = 10;
+
+    private static final Placement[] PLACEMENTS;
+    private static final long[] LOW;
+    private static final long[] HIGH;
+    private static final int[] X;
+    private static final int[] Y;
+    private static final long[] RING_LOW;
+    private static final long[] RING_HIGH;
+    private static final int[] EDGES;
+    private static final int[][] BY_BUILDING = new int[Building.values().length][];
+    private static final Map<Placement, Integer> INDEX = new HashMap<>();
+
+    static {
+        Board empty = new Game().getBoard();
+        List<Placement> placements = new ArrayList<>();
+        List<long[]> masks = new ArrayList<>();
+        List<int[]> anchors = new ArrayList<>();
+
+        for (Building building : Building.values()) {
+            List<Integer> indices = new ArrayList<>();
+            // Reihenfolge y, x, Richtung wie bei der bisherigen Zuggenerierung
+            for (int y = 0; y < SIZE; ++y) {
+                for (int x = 0; x < SIZE; ++x) {
+                    for (Direction direction : building.getTurnable().getPossibleDirections()) {
+                        Placement placement = new Placement(x, y, direction, building);
+                        Board board = empty.copy();
+                        if (!board.placeBuilding(placement)) {
+                            continue;
+                        }
+                        long[] mask = new long[2];
+                        Color[][] field = board.getField();
+                        for (int cy = 0; cy < SIZE; ++cy) {
+                            for (int cx = 0; cx < SIZE; ++cx) {
+                                if (field[cy][cx] == building.getColor()) {
+                                    int cell = cy * SIZE + cx;
+                                    mask[cell >>> 6] |= 1L << (cell & 63);
+                                }
+                            }
+                        }
+                        INDEX.put(placement, placements.size());
+                        indices.add(placements.size());
+                        placements.add(placement);
+                        masks.add(mask);
+                        anchors.add(new int[]{x, y});
+                    }
+                }
+            }
+            BY_BUILDING[building.ordinal()] = indices.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int count = placements.size();
+        PLACEMENTS = placements.toArray(new Placement[0]);
+        LOW = new long[count];
+        HIGH = new long[count];
+        X = new int[count];
+        Y = new int[count];
+        RING_LOW = new long[count];
+        RING_HIGH = new long[count];
+        EDGES = new int[count];
+        for (int i = 0; i < count; i++) {
+            LOW[i] = masks.get(i)[0];
+            HIGH[i] = masks.get(i)[1];
+            X[i] = anchors.get(i)[0];
+            Y[i] = anchors.get(i)[1];
+            computeRing(i);
+        }
+    }
+
+    /**
+     * Bestimmt die Nachbarzellen (8er-Nachbarschaft) außerhalb des Gebäudes und die Anzahl der
+     * Gebäudeseiten, die am Brettrand liegen.
+     */
+    private static void computeRing(int index) {
+        for (int cell = 0; cell < SIZE * SIZE; cell++) {
+            if (!contains(LOW[index], HIGH[index], cell)) {
+                continue;
+            }
+            int x = cell % SIZE;
+            int y = cell / SIZE;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    int ny = y + dy;
+                    if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE) {
+                        if (dx == 0 || dy == 0) {
+                            EDGES[index]++;
+                        }
+                        continue;
+                    }
+                    int neighbour = ny * SIZE + nx;
+                    if (!contains(LOW[index], HIGH[index], neighbour)) {
+                        if (neighbour < 64) {
+                            RING_LOW[index] |= 1L << neighbour;
+                        } else {
+                            RING_HIGH[index] |= 1L << (neighbour - 64);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean contains(long low, long high, int cell) {
+        return cell < 64 ? (low >>> cell & 1L) != 0 : (high >>> (cell - 64) & 1L) != 0;
+    }
+
+    private Footprints() {
+    }
+
+    /**
+     * @return Die Anzahl aller Platzierungen.
+     */
+    public static int count() {
+        return PLACEMENTS.length;
+    }
+
+    /**
+     * @return Die Indizes aller Platzierungen eines Gebäudes in der Reihenfolge y, x, Richtung.
+     */
+    public static int[] of(Building building) {
+        return BY_BUILDING[building.ordinal()];
+    }
+
+    /**
+     * @return Der Index der Platzierung oder -1, wenn sie nicht auf das Brett passt.
+     */
+    public static int indexOf(Placement placement) {
+        Integer index = INDEX.get(placement);
+        return index == null ? -1 : index;
+    }
+
+    public static Placement placement(int index) {
+        return PLACEMENTS[index];
+    }
+
+    public static Building building(int index) {
+        return PLACEMENTS[index].building();
+    }
+
+    public static int x(int index) {
+        return X[index];
+    }
+
+    public static int y(int index) {
+        return Y[index];
+    }
+
+    /**
+     * @return Die Belegungsmaske der Zellen 0 bis 63.
+     */
+    public static long low(int index) {
+        return LOW[index];
+    }
+
+    /**
+     * @return Die Belegungsmaske der Zellen 64 bis 99.
+     */
+    public static long high(int index) {
+        return HIGH[index];
+    }
+
+    /**
+     * @return Die Nachbarzellen 0 bis 63, die nicht zum Gebäude gehören.
+     */
+    public static long ringLow(int index) {
+        return RING_LOW[index];
+    }
+
+    /**
+     * @return Die Nachbarzellen 64 bis 99, die nicht zum Gebäude gehören.
+     */
+    public static long ringHigh(int index) {
+        return RING_HIGH[index];
+    }
+
+    /**
+     * @return Die Anzahl der Gebäudeseiten, die am Brettrand liegen.
+     */
+    public static int edges(int index) {
+        return EDGES[index];
+    }
+}
@@ -0,0 +1,191 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Liest Partiedateien von {@link GameRecordWriter}. Die Datei wird in Abschnitten von 1 GB gemappt, nicht
+ * eingelesen; jeder Abschnitt reicht um die maximale Eintragslänge weiter, damit jede Partie vollständig in dem
+ * Abschnitt liegt, in dem sie beginnt. Beim Durchlaufen wird nur die Länge jedes Eintrags gelesen, alles Weitere
+ * liest {@link RecordedGame} erst bei Bedarf.
+ * <p>
+ * Aufruf: {@code GameRecordReader <file>} gibt eine Übersicht über die Partien der Datei aus.
+ */
+public final class GameRecordReader implements Closeable {
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    private final String source;
+    private final FileChannel channel;
+    private final ByteBuffer[] chunks;
+    private final long size;
+    private long[] offsets;
+
+    private GameRecordReader(String source, FileChannel channel, ByteBuffer[] chunks, long size) {
+        this.source = source;
+        this.channel = channel;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * Mappt eine Partiedatei.
+     *
+     * @throws IOException Wenn die Datei nicht lesbar ist oder keine Partiedatei dieser Version ist.
+     */
+    public static GameRecordReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) Math.max(1, (size + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = i * CHUNK_BYTES;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(size - start, CHUNK_BYTES + RecordedGame.MAX_RECORD_BYTES));
+            }
+            checkHeader(chunks[0], size, path.toString());
+            return new GameRecordReader(path.toString(), channel, chunks, size);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Liest Partien aus einem Buffer mit dem Inhalt einer Partiedatei, z.B. aus einer Netzwerkanfrage.
+     *
+     * @param buffer Der Inhalt ab Position 0, höchstens 2 GB.
+     * @param source Die Herkunft für Fehlermeldungen.
+     * @throws IOException Wenn der Inhalt keine Partiedatei dieser Version ist.
+     */
+    public static GameRecordReader wrap(ByteBuffer buffer, String source) throws IOException {
+        checkHeader(buffer, buffer.limit(), source);
+        return new GameRecordReader(source, null, new ByteBuffer[]{buffer}, buffer.limit());
+    }
+
+    private static void checkHeader(ByteBuffer first, long size, String source) throws IOException {
+        if (size < RecordedGame.FILE_HEADER_BYTES || first.getInt(0) != RecordedGame.MAGIC
+                || first.getInt(4) != RecordedGame.VERSION) {
+            throw new IOException("Not a game record file of version " + RecordedGame.VERSION + ": " + source);
+        }
+    }
+
+    /**
+     * Durchläuft alle Partien der Reihe nach. Die übergebene Sicht wird für jede Partie wiederverwendet und ist
+     * nur während des Aufrufs gültig.
+     */
+    public void forEach(Consumer<RecordedGame> action) {
+        RecordedGame view = null;
+        for (long offset = RecordedGame.FILE_HEADER_BYTES; ; ) {
+            int length = length(offset);
+            if (length <= 0) {
+                return;
+            }
+            int chunk = (int) (offset / CHUNK_BYTES);
+            if (view == null) {
+                view = new RecordedGame(chunks[chunk], (int) (offset - chunk * CHUNK_BYTES));
+            } else {
+                view.reset(chunks[chunk], (int) (offset - chunk * CHUNK_BYTES));
+            }
+            action.accept(view);
+            offset += length;
+        }
+    }
+
+    /**
+     * @return Die Dateipositionen aller Partien. Sie werden beim ersten Aufruf ermittelt.
+     */
+    public synchronized long[] offsets() {
+        if (offsets == null) {
+            long[] found = new long[1024];
+            int count = 0;
+            for (long offset = RecordedGame.FILE_HEADER_BYTES; ; ) {
+                int length = length(offset);
+                if (length <= 0) {
+                    break;
+                }
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = offset;
+                offset += length;
+            }
+            offsets = Arrays.copyOf(found, count);
+        }
+        return offsets;
+    }
+
+    /**
+     * @return Die Anzahl der Partien in der Datei.
+     */
+    public int count() {
+        return offsets().length;
+    }
+
+    /**
+     * @param index Der Index der Partie in der Datei.
+     * @return Eine eigene Sicht auf die Partie, sie kann auch in anderen Threads genutzt werden.
+     */
+    public RecordedGame get(int index) {
+        long offset = offsets()[index];
+        int chunk = (int) (offset / CHUNK_BYTES);
+        return new RecordedGame(chunks[chunk], (int) (offset - chunk * CHUNK_BYTES));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return Die Länge des Eintrags an der Position oder 0 am Dateiende. Ein unvollständiger letzter Eintrag,
+     * etwa nach einem Absturz beim Schreiben, zählt als Dateiende.
+     */
+    private int length(long offset) {
+        if (offset >= size) {
+            return 0;
+        }
+        int length = 0;
+        if (offset + RecordedGame.NAMES <= size) {
+            int chunk = (int) (offset / CHUNK_BYTES);
+            length = chunks[chunk].getInt((int) (offset - chunk * CHUNK_BYTES) + RecordedGame.LENGTH);
+        }
+        if (length < RecordedGame.NAMES || length > RecordedGame.MAX_RECORD_BYTES || offset + length > size) {
+            System.err.println("[records] " + source + ": incomplete record at " + offset + " ignored");
+            return 0;
+        }
+        return length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: GameRecordReader <file>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long[] totals = new long[5];
+        try (GameRecordReader reader = open(Path.of(args[0]))) {
+            reader.forEach(game -> {
+                int black = game.score(Color.Black);
+                int white = game.score(Color.White);
+                totals[0]++;
+                totals[1] += game.moveCount();
+                totals[black < white ? 2 : black == white ? 3 : 4]++;
+            });
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long games = Math.max(1, totals[0]);
+        System.out.printf("%d games, %.1f moves per game, black %d / draw %d / white %d, scanned in %d ms%n",
+                totals[0], (double) totals[1] / games, totals[2], totals[3], totals[4], millis);
+    }
+}
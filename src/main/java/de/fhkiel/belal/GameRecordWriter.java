@@ -0,0 +1,147 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hängt Partien im Format von {@link RecordedGame} an eine Datei an. Jede Partie wird mit einem einzigen
+ * Schreibaufruf geschrieben, sobald sie beendet ist; der Writer kann von mehreren Threads genutzt werden.
+ */
+public final class GameRecordWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RecordedGame.MAX_RECORD_BYTES);
+
+    private GameRecordWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Öffnet eine Datei zum Anhängen. Eine neue oder leere Datei erhält den Dateikopf. Ein unvollständiger
+     * letzter Eintrag, etwa nach einem Absturz beim Schreiben, wird abgeschnitten, damit die neuen Partien
+     * direkt an die letzte vollständige anschließen.
+     *
+     * @throws IOException Wenn die Datei nicht schreibbar ist oder keine Partiedatei dieser Version ist.
+     */
+    public static GameRecordWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RecordedGame.FILE_HEADER_BYTES);
+            if (channel.size() == 0) {
+                header.putInt(RecordedGame.MAGIC).putInt(RecordedGame.VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } else {
+                channel.read(header, 0);
+                if (header.getInt(0) != RecordedGame.MAGIC || header.getInt(4) != RecordedGame.VERSION) {
+                    throw new IOException("Not a game record file of version " + RecordedGame.VERSION + ": " + path);
+                }
+                long end = endOfLastRecord(channel);
+                if (end < channel.size()) {
+                    System.err.println("[records] " + path + ": incomplete record at " + end + " truncated");
+                    channel.truncate(end);
+                }
+            }
+            channel.position(channel.size());
+            return new GameRecordWriter(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Läuft über die Längenfelder aller Einträge, mit denselben Prüfungen wie {@link GameRecordReader}.
+     *
+     * @return Die Position hinter dem letzten vollständigen Eintrag.
+     */
+    private static long endOfLastRecord(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        long offset = RecordedGame.FILE_HEADER_BYTES;
+        while (offset + RecordedGame.NAMES <= size) {
+            length.clear();
+            while (length.hasRemaining()) {
+                channel.read(length, offset + RecordedGame.LENGTH + length.position());
+            }
+            int recordLength = length.getInt(0);
+            if (recordLength < RecordedGame.NAMES || recordLength > RecordedGame.MAX_RECORD_BYTES
+                    || offset + recordLength > size) {
+                break;
+            }
+            offset += recordLength;
+        }
+        return offset;
+    }
+
+    /**
+     * Schreibt eine beendete Partie.
+     *
+     * @param blackAgent  Der Name des Agenten für Schwarz.
+     * @param whiteAgent  Der Name des Agenten für Weiß.
+     * @param startMillis Der Beginn der Partie in Millisekunden seit 1970.
+     * @param score       Der Endstand aus {@link de.fhkiel.ki.cathedral.game.Game#score()}.
+     * @param moves       Die Züge in Spielreihenfolge, null für einen ausgelassenen Zug.
+     * @param moveMillis  Die Bedenkzeit pro Zug in Millisekunden, gleich lang wie moves.
+     * @param colors      Die Farbe, die den jeweiligen Zug berechnet hat, gleich lang wie moves.
+     */
+    public synchronized void write(String blackAgent, String whiteAgent, long startMillis, Map<Color, Integer> score,
+                                   List<Placement> moves, List<Long> moveMillis, List<Color> colors) throws IOException {
+        if (moves.size() > RecordedGame.MAX_MOVES) {
+            throw new IllegalArgumentException("Too many moves for a game record: " + moves.size());
+        }
+        byte[] black = name(blackAgent);
+        byte[] white = name(whiteAgent);
+        long blackMillis = 0;
+        long whiteMillis = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (colors.get(i) == Color.White) {
+                whiteMillis += moveMillis.get(i);
+            } else {
+                blackMillis += moveMillis.get(i);
+            }
+        }
+
+        buffer.clear();
+        buffer.putInt(0)
+                .putLong(startMillis)
+                .putShort((short) score.getOrDefault(Color.Black, 0).intValue())
+                .putShort((short) score.getOrDefault(Color.White, 0).intValue())
+                .putInt((int) Math.min(Integer.MAX_VALUE, blackMillis))
+                .putInt((int) Math.min(Integer.MAX_VALUE, whiteMillis))
+                .putShort((short) moves.size())
+                .put((byte) black.length).put(black)
+                .put((byte) white.length).put(white);
+        for (int i = 0; i < moves.size(); i++) {
+            buffer.putShort((short) RecordedGame.encode(moves.get(i)));
+            buffer.putShort((short) Math.min(0xFFFF, moveMillis.get(i)));
+        }
+        buffer.putInt(RecordedGame.LENGTH, buffer.position());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] name(String agent) {
+        byte[] bytes = agent.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= RecordedGame.MAX_NAME_BYTES ? bytes : Arrays.copyOf(bytes, RecordedGame.MAX_NAME_BYTES);
+    }
+}
@@ -1,101 +1,88 @@
 package de.fhkiel.belal;
 
 import de.fhkiel.ki.cathedral.ai.Agent;
-import de.fhkiel.ki.cathedral.game.Building;
 import de.fhkiel.ki.cathedral.game.Game;
 import de.fhkiel.ki.cathedral.game.Placement;
 
 import java.util.*;
 
+/**
+ * Agent auf Basis einer Monte-Carlo-Baumsuche, deren Playouts bevorzugt die größten Gebäude setzen.
+ */
 public class LargestPieceAgent implements Agent {
-    @Override
-    public Optional<Placement> calculateTurn(Game game, int timeForTurn, int timeBonus) {
-        // Schritt 1: Ermitteln der platzierbaren Gebäude im aktuellen Spielzustand
-        List<Building> placableBuildings = game.getPlacableBuildings();
-
-        // Schritt 2: Finden der Gebäude mit dem höchsten Score
-        List<Building> highestScoreBuildings = findHighestScoreBuildings(placableBuildings);
+    private static final long DEFAULT_SEED = 0x4C50L;
 
-        if (!highestScoreBuildings.isEmpty()) {
-            // Schritt 3: Simulation von Platzierungen für das Gebäude mit dem höchsten Score
-            return simulatePlacements(game, highestScoreBuildings);
-        }
+    private final MonteCarloTreeSearch search;
+    private final long playoutBudget;
+    private boolean pondering;
+    private TimeManager timeManager = new TimeManager();
 
-        return Optional.empty();
+    public LargestPieceAgent() {
+        this(Long.MAX_VALUE);
     }
 
-    private Optional<Placement> simulatePlacements(Game game, List<Building> buildings) {
-        int simulations = 100;
-        int bestScore = Integer.MIN_VALUE;
-        Placement bestPlacement = null;
-
-        // Iteriere über die Gebäude mit dem höchsten Score
-        for (Building building : buildings) {
-            // Schritt 4: Ermitteln aller möglichen Platzierungen für das aktuelle Gebäude
-            Set<Placement> possiblePlacements = building.getPossiblePlacements(game);
-            List<Placement> possiblePlacementsList = new ArrayList<>(possiblePlacements);
-
-            // Iteriere über alle möglichen Platzierungen
-            for (Placement placement : possiblePlacementsList) {
-                // Schritt 5: Simulation des Spiels nach der Platzierung
-                int score = simulateGame(game, building, placement, simulations);
-
-                // Schritt 6: Auswahl der Platzierung mit dem besten simulierten Score
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestPlacement = placement;
-                }
-            }
-        }
-
-        // Schritt 7: Rückgabe der besten Platzierung
-        return Optional.ofNullable(bestPlacement);
+    /**
+     * @param playoutBudget Die maximale Anzahl an Playouts pro Zug, zusätzlich zum Zeitbudget.
+     */
+    public LargestPieceAgent(long playoutBudget) {
+        this(playoutBudget, DEFAULT_SEED);
     }
 
-    private int simulateGame(Game game, Building building, Placement placement, int simulations) {
-        int totalScore = 0;
-
-        // Schritt 8: Durchführung von Simulationen für die ausgewählte Platzierung
-        for (int i = 0; i < simulations; i++) {
-            // Schritt 9: Kopieren des aktuellen Spielzustands für die Simulation
-            Game simulatedGame = game.copy();
-            // Schritt 10: Platzieren des Gebäudes in der simulierten Partie
-            simulatedGame.takeTurn(placement);
-
+    /**
+     * @param playoutBudget Die maximale Anzahl an Playouts pro Zug, zusätzlich zum Zeitbudget.
+     * @param seed          Der Seed für die Zufallsentscheidungen der Suche.
+     */
+    public LargestPieceAgent(long playoutBudget, long seed) {
+        this.playoutBudget = playoutBudget;
+        this.search = new MonteCarloTreeSearch(seed);
+    }
 
-            int score = evaluateSimulatedGame(simulatedGame);
-            totalScore += score;
+    /**
+     * Sucht bis zur Zielzeit des {@link TimeManager}, bei stabilem besten Zug auch kürzer. Ist das Budget zu
+     * knapp für eine Suche oder findet sie keinen Zug, wird der gierige Flächenzug gespielt. Ein laufendes
+     * Pondern endet sofort, damit es der Zugberechnung keine Rechenzeit nimmt.
+     */
+    @Override
+    public Optional<Placement> calculateTurn(Game game, int timeForTurn, int timeBonus) {
+        search.stopPondering();
+        TimeManager.Budget budget = timeManager.allocate(game, timeForTurn, timeBonus);
+        if (budget.mode() == TimeManager.Mode.GREEDY) {
+            return LookAheadAgent.greedyMove(game);
         }
-
-
-        return totalScore / simulations;
+        Optional<Placement> move = search.search(game, budget.softDeadline(), budget.deadline(), playoutBudget);
+        if (move.isEmpty()) {
+            return LookAheadAgent.greedyMove(game);
+        }
+        if (pondering) {
+            search.startPondering(game, playoutBudget);
+        }
+        return move;
     }
 
-    private int evaluateSimulatedGame(Game simulatedGame) {
-      //todo
-
-        return 0;
+    /**
+     * Ersetzt die Zeiteinteilung. Standard ist ein {@link TimeManager} mit Standardwerten.
+     */
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
     }
 
-    private List<Building> findHighestScoreBuildings(List<Building> buildings) {
-        int highestScore = -1;
-
-        for (Building building : buildings) {
-            int score = building.score();
-            if (score > highestScore) {
-                highestScore = score;
-            }
-        }
-
-        final int maxScore = highestScore;
-        List<Building> highestScoreBuildings = new ArrayList<>();
-
-        for (Building building : buildings) {
-            if (building.score() == maxScore) {
-                highestScoreBuildings.add(building);
-            }
+    /**
+     * Schaltet das Pondern ein oder aus. Beim Pondern wächst der Suchbaum während der Zugzeit des
+     * Gegners weiter und wird im nächsten Zug übernommen.
+     *
+     * @param pondering true, wenn in der Zugzeit des Gegners weitergesucht werden soll.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            search.stopPondering();
         }
+    }
 
-        return highestScoreBuildings;
+    /**
+     * @return Ob gerade im Hintergrund gesucht wird.
+     */
+    boolean isPondering() {
+        return search.isPondering();
     }
 }
@@ -3,66 +3,76 @@ import de.fhkiel.ki.cathedral.ai.Agent;
 import de.fhkiel.ki.cathedral.game.Board;
 import de.fhkiel.ki.cathedral.game.Building;
 import de.fhkiel.ki.cathedral.game.Color;
-import de.fhkiel.ki.cathedral.game.Direction;
 import de.fhkiel.ki.cathedral.game.Game;
 import de.fhkiel.ki.cathedral.game.Placement;
-import de.fhkiel.ki.cathedral.game.Position;
-import de.fhkiel.ki.cathedral.gui.Settings;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class LookAheadAgent implements Agent {
+    /**
+     * Spielt den Zug mit dem größten Flächengewinn.
+     *
+     * @return Der Zug oder leer, wenn kein Zug Fläche gewinnt.
+     */
     @Override
     public Optional<Placement> calculateTurn(Game game, int timeForTurn, int timeBonus) {
-        Board current = game.getBoard().copy();
+        PlacementWithGain best = bestGain(game);
+        return best == null || best.gain <= 0 ? Optional.empty() : Optional.of(best.placement);
+    }
+
+    /**
+     * Wie {@link #calculateTurn}, aber bringt kein Zug Fläche, wird das größte passende Gebäude gesetzt.
+     * Dient als billigste Rückfallstufe der suchenden Agenten.
+     *
+     * @return Der Zug oder leer, wenn der Spieler am Zug kein Gebäude setzen kann.
+     */
+    static Optional<Placement> greedyMove(Game game) {
+        PlacementWithGain best = bestGain(game);
+        return best == null ? Optional.empty() : Optional.of(best.placement);
+    }
 
-        List<PlacementWithBoard> opp = new ArrayList<>();
+    /**
+     * @return Der Zug mit dem größten Flächengewinn, bei Gleichstand der mit dem größeren Gebäude, oder null.
+     */
+    private static PlacementWithGain bestGain(Game game) {
+        Board current = game.getBoard();
+        Color player = game.getCurrentPlayer();
+        BitBoard bitBoard = BitBoard.of(current);
+        AreaTracker areas = new AreaTracker(1);
+        areas.reset(game);
+        int currentOwnedArea = areas.ownedArea(player);
+        boolean[] seen = new boolean[Building.values().length];
+
+        List<PlacementWithGain> opp = new ArrayList<>();
         for(Building free : current.getAllUnplacedBuildings()){
-            if(free.getColor() == game.getCurrentPlayer()){
-                for (Direction d : free.getTurnable().getPossibleDirections()){
-                    for(int y = 0; y < 10; ++y){
-                        for(int x = 0; x < 10; ++x){
-                            Placement poss = new Placement(x, y, d, free);
-                            if(current.placeBuilding(poss)){
-                                opp.add(new PlacementWithBoard(poss, current));
-                                current = game.getBoard().copy();
-                            }
+            if(free.getColor() == player && !seen[free.ordinal()]){
+                seen[free.ordinal()] = true;
+                for(int footprint : Footprints.of(free)){
+                    if(bitBoard.canPlace(footprint)){
+                        Placement poss = Footprints.placement(footprint);
+                        // Zug ausführen, Flächengewinn inkrementell ablesen und wieder zurücknehmen
+                        if(game.takeTurn(poss)){
+                            areas.apply(game, poss);
+                            opp.add(new PlacementWithGain(poss, areas.ownedArea(player) - currentOwnedArea));
+                            areas.undo();
+                            game.undoLastTurn();
                         }
                     }
                 }
             }
         }
 
-        int currentOwnedArea = getAreaCount(current, game.getCurrentPlayer());
-        int bestAreaGain = 0;
-        Placement best = null;
-
-        for(PlacementWithBoard pWb : opp){
-            int currentAreaGain = getAreaCount(pWb.board, game.getCurrentPlayer()) - currentOwnedArea;
-            if(currentAreaGain > bestAreaGain){
-                bestAreaGain = currentAreaGain;
-                best = pWb.placement;
+        PlacementWithGain best = null;
+        for(PlacementWithGain pWg : opp){
+            if(best == null || pWg.gain > best.gain
+                    || (pWg.gain == best.gain && pWg.placement.building().score() > best.placement.building().score())){
+                best = pWg;
             }
         }
 
-        if(best != null){
-            return Optional.of(best);
-        }
-        return Optional.empty();
-    }
-
-    private int getAreaCount(Board board, Color player) {
-        int currentOwnedArea = 0;
-        for(int y = 0; y < 10; ++y){
-            for(int x = 0; x < 10; ++x){
-                if(board.getField()[y][x] == player.subColor()){
-                    currentOwnedArea += 1;
-                }
-            }
-        }
-        return currentOwnedArea;
+        return best;
     }
 
-    private record PlacementWithBoard(Placement placement, Board board){};
+    private record PlacementWithGain(Placement placement, int gain){};
 }
@@ -4,329 +4,1152 @@ import de.fhkiel.ki.cathedral.ai.Agent;
 import de.fhkiel.ki.cathedral.game.*;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementierung eines Minimax-Agenten für das Spiel Cathedral.
  */
 public class MinimaxAgent implements Agent {
 
+    /** Maximale Tiefe der iterativen Vertiefung. */
+    private static final int MAX_DEPTH = 64;
+    /** Anzahl der Zugversuche zwischen zwei Abfragen der Uhr (Zweierpotenz). */
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+    /** Standardgröße der Transpositionstabelle in Megabyte. */
+    private static final int DEFAULT_TT_SIZE_MB = 64;
+    /** Anzahl der gegnerischen Antworten, die beim Pondern durchsucht werden. */
+    private static final int PONDER_REPLIES = 4;
+    /** Obergrenze für das Pondern, falls kein weiterer Zug angefragt wird. */
+    private static final long MAX_PONDER_MS = 60000;
+    /** Halbe Breite des ersten Aspirationsfensters: ein Feld. */
+    private static final int ASPIRATION_WINDOW = Evaluation.SCALE;
+    /** Nach so vielen Erweiterungen wird mit vollem Fenster gesucht. */
+    private static final int ASPIRATION_RETRIES = 2;
+    /** Late Move Reductions erst ab dieser Resttiefe und nach so vielen voll durchsuchten Zügen. */
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_FULL_MOVES = 3;
+    /** Ab diesem Zug wird um zwei statt um eine Ebene reduziert. */
+    private static final int LMR_LATE_MOVES = 12;
+    /** Gebäude bis zu dieser Größe gelten für die Strahlbreite als klein. */
+    private static final int BEAM_SMALL_BUILDING = 2;
+    /** Maximale Anzahl an Platzierungen kleiner Gebäude pro Knoten. */
+    private static final int BEAM_WIDTH = 8;
+    // Abstand beendeter Spiele zu jeder heuristischen Bewertung, weit über deren Wertebereich
+    private static final int TERMINAL_SCORE = 1 << 24;
+
+    // Die Scores gelten aus Sicht des Spielers an der Wurzel, beide Farben haben eigene Schlüssel
+    private final TranspositionTable transpositionTable;
+    // Die History der Zugsortierung stammt aus Suchen für diesen Spieler
+    private Color historyPlayer;
+    private final SearchWorker[] workers;
+    // Hilfsthreads für die parallele Suche, werden erst bei Bedarf erzeugt
+    private ExecutorService executor;
+
+    // Pondern: eigener Worker und Thread, Ergebnisse pro Stellungshash
+    private boolean pondering;
+    private SearchWorker ponderWorker;
+    private ExecutorService ponderExecutor;
+    private Future<?> ponderTask;
+    private final Map<Long, PonderResult> ponderResults = new HashMap<>();
+    private volatile long ponderNodes;
+    private long lastPonderNodes;
+    private int lastPonderHitDepth;
+
+    // Von allen Workern geteilter Zustand der laufenden Suche
+    private volatile long deadline;
+    private volatile boolean stopped;
+    // Hauptvariante der zuletzt vollständig abgeschlossenen Tiefe, dient der Zugsortierung
+    private Placement[] previousPv = new Placement[0];
+
+    private SearchVerbosity verbosity = SearchVerbosity.fromSystemProperty();
+    private OpeningBook openingBook = OpeningBook.loadDefault();
+    private Evaluation evaluation = Evaluation.loadDefault();
+    private EndgameSolver endgameSolver = new EndgameSolver();
+    private EnumSet<SearchFeature> searchFeatures = SearchFeature.fromSystemProperty();
+    private TimeManager timeManager = new TimeManager();
+    private SearchRecord lastSearchRecord;
+
+    public MinimaxAgent() {
+        this(DEFAULT_TT_SIZE_MB);
+    }
+
+    /**
+     * @param transpositionTableMb Die Größe der Transpositionstabelle in Megabyte.
+     */
+    public MinimaxAgent(int transpositionTableMb) {
+        this(transpositionTableMb, 1);
+    }
+
+    /**
+     * Erzeugt einen Agenten, der die Wurzelzüge auf mehrere Threads verteilt. Jeder Thread sucht auf einer
+     * eigenen Kopie des Spiels, die Transpositionstabelle wird lock-frei geteilt.
+     * Ohne {@link SearchFeature#LMR} und {@link SearchFeature#BEAM} hängt das Ergebnis einer abgeschlossenen Tiefe
+     * nicht von der Anzahl der Threads oder deren Timing ab. Mit ihnen schon: Welche Züge reduziert oder
+     * abgeschnitten werden, folgt aus der Zugsortierung, und die hängt von Killern und History des Workers und von
+     * Tabellenzügen anderer Worker ab.
+     *
+     * @param transpositionTableMb Die Größe der Transpositionstabelle in Megabyte.
+     * @param threads              Die Anzahl der Such-Threads (1 = sequentielle Suche).
+     */
+    public MinimaxAgent(int transpositionTableMb, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        transpositionTable = new TranspositionTable(transpositionTableMb);
+        workers = new SearchWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            // Bei mehreren Threads nur Einträge exakt gleicher Tiefe verwenden, damit die Scores nicht vom Timing abhängen
+            workers[i] = new SearchWorker(threads > 1);
+        }
+    }
+
     /**
      * Berechnet den besten Zug für den aktuellen Spielzustand.
+     * Die Suche vertieft iterativ, bis das vom {@link TimeManager} berechnete Zeitbudget verbraucht
+     * ist oder der beste Zug stabil bleibt. Zurückgegeben wird der beste Zug der letzten vollständig
+     * abgeschlossenen Tiefe. Reicht die Zeit nicht für eine Suche, fällt der Agent über Buch, flache
+     * Suche und den gierigen Flächenzug bis auf einen beliebigen legalen Zug zurück; leer ist das
+     * Ergebnis nur, wenn kein Zug möglich ist.
      *
      * @param game        Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
-     * @param timeForTurn Die verbleibende Zeit für den aktuellen Zug.
-     * @param timeBonus   Ein Bonus für die verbleibende Zeit.
+     * @param timeForTurn Die verbleibende Zeit für den aktuellen Zug in Sekunden.
+     * @param timeBonus   Ein Bonus für die verbleibende Zeit in Sekunden.
      * @return Die berechnete Placement-Instanz für den besten Zug.
      */
     @Override
     public Optional<Placement> calculateTurn(Game game, int timeForTurn, int timeBonus) {
+        long startTime = System.currentTimeMillis();
+        PonderResult pondered = stopPondering(game);
+        Optional<Placement> move = chooseMove(game, timeForTurn, timeBonus, startTime, pondered);
+        if (pondering && move.isPresent()) {
+            startPondering(game, move.get());
+        }
+        return move;
+    }
+
+    private Optional<Placement> chooseMove(Game game, int timeForTurn, int timeBonus, long startTime, PonderResult pondered) {
         List<Placement> placements = generatePossiblePlacements(game, game.getCurrentPlayer());
-        System.out.println("Generated Possible Placements Count: " + placements.size());  // Hinzugefügt
 
-        Placement bestMove = null;
-        int tenSeconds = 10000;
+        // Buchstellungen sofort beantworten, der Zug wird trotzdem gegen die legalen Züge geprüft
+        Optional<Placement> bookMove = openingBook.lookup(game);
+        if (bookMove.isPresent() && (placements.contains(bookMove.get()) || game.lastTurn().getTurnNumber() == 0)) {
+            return Optional.of(immediateMove(game, bookMove.get(), startTime, "book"));
+        }
         if (game.lastTurn().getTurnNumber() == 0) {
-            bestMove = new Placement(4, 4, Direction._90, Building.Blue_Cathedral);
-        } else {
-            long startTime = System.currentTimeMillis();
-            long deadline = startTime + tenSeconds;
-            // Iterative Deepening Depth-First Search (IDDFS)
-       //
-            //   while (System.currentTimeMillis() < deadline) {
-
-                int depth = 1;
+            return Optional.of(immediateMove(game, new Placement(4, 4, Direction._90, Building.Blue_Cathedral), startTime, "fixed"));
+        }
+        if (placements.isEmpty()) {
+            return Optional.empty();
+        }
 
+        TimeManager.Budget budget = timeManager.allocate(game, timeForTurn, timeBonus, startTime);
+        if (budget.mode() == TimeManager.Mode.GREEDY) {
+            return Optional.of(immediateMove(game, greedyMove(game, placements), startTime, "greedy"));
+        }
+        // Im Endspiel zuerst exakt lösen; gelingt das nicht in der halben Zeit, sucht die Heuristik weiter
+        if (endgameSolver != null && endgameSolver.applies(game)) {
+            Optional<EndgameSolver.Solution> solution = endgameSolver.solve(game, budget.start() + budget.target() / 2);
+            if (solution.isPresent() && (solution.get().exact() || solution.get().margin() >= 0)) {
+                return Optional.of(immediateMove(game, solution.get().move(), startTime,
+                        "endgame (margin " + solution.get().margin() + (solution.get().exact() ? "" : ", sign only")
+                                + ", " + solution.get().nodes() + " nodes)"));
+            }
+        }
 
-                int bestScore = Integer.MIN_VALUE;
+        deadline = budget.deadline();
+        stopped = false;
+        // Wurde die Stellung beim Pondern schon durchsucht, dient deren Hauptvariante der Zugsortierung
+        previousPv = pondered != null ? pondered.pv() : new Placement[0];
+        useHistoryFor(game.getCurrentPlayer());
+        transpositionTable.newSearch();
+        for (int i = 0; i < workers.length; i++) {
+            // Der erste Worker sucht auf dem übergebenen Spiel, alle weiteren auf eigenen Kopien
+            workers[i].prepare(i == 0 ? game : game.copy(), placements);
+        }
 
+        // Ohne abgeschlossene Tiefe gilt der geponderte Zug, sonst der gierige Flächenzug
+        Placement bestMove = previousPv.length > 0 && placements.contains(previousPv[0]) ? previousPv[0] : null;
+        int bestScore = Integer.MIN_VALUE;
+        int completedDepth = 0;
+        int stableIterations = 0;
+        int maxDepth = budget.mode() == TimeManager.Mode.SHALLOW ? TimeManager.SHALLOW_DEPTH : MAX_DEPTH;
+        List<Long> depthMillis = new ArrayList<>();
 
-                for (Placement placement : placements) {
-                    System.out.println("[calculateTurn] Testing placement: " + placement);
-                    game.takeTurn(placement);
-                    int score = minimax(game, depth, Integer.MIN_VALUE, Integer.MAX_VALUE, false, game.getCurrentPlayer(), placements);
-                    game.undoLastTurn();
-                    System.out.println("[calculateTurn] Score for placement: " + score);
-                    if (score > bestScore) {
-                        System.out.println("[calculateTurn] Found better placement: " + placement + " with score: " + score);  // Log if a better placement was found
-                        bestMove = placement;
-                        bestScore = score;
-                    }
-                    System.out.println("Current placement: " + placement);
-                    System.out.println("Score: " + score);
-                    System.out.println("Current best score: " + bestScore);
-                    System.out.println("Current best move: " + bestMove);
+        // Iterative Deepening Depth-First Search (IDDFS)
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            for (SearchWorker worker : workers) {
+                worker.depthLimitReached = false;
+            }
+            try {
+                bestScore = searchIteration(depth, bestScore);
+            } catch (SearchTimeoutException e) {
+                // Abgebrochene Tiefe verwerfen, die Spiele sind durch die finally-Blöcke wiederhergestellt
+                break;
+            }
+            completedDepth = depth;
+            stableIterations = previousPv[0].equals(bestMove) ? stableIterations + 1 : 1;
+            bestMove = previousPv[0];
+            long now = System.currentTimeMillis();
+            depthMillis.add(now - startTime);
+            if (verbosity == SearchVerbosity.DEPTH) {
+                System.out.println("[search] depth " + depth + ": " + bestMove + ", score " + bestScore
+                        + ", " + totalStatistics().nodes() + " nodes, " + depthMillis.get(depth - 1) + " ms");
+            }
 
-                }
-// depth++ wird nie benutzt
-                depth++;
-            System.out.println("[calculateTurn] Final best move: " + bestMove + ", with score: "+bestScore);  // Log the final best move and score
+            // Wurde kein Knoten durch die Tiefe begrenzt, ist der Baum vollständig durchsucht
+            long iterationMillis = depthMillis.get(depth - 1) - (depth > 1 ? depthMillis.get(depth - 2) : 0);
+            if (!anyDepthLimitReached() || !budget.startNextIteration(now, stableIterations, iterationMillis)) {
+                break;
             }
-     //   }
-        if (bestMove != null && (game.lastTurn().getAction() == null || !game.lastTurn().getAction().equals(bestMove))) {
-            game.takeTurn(bestMove);  // Führt den besten berechneten Zug auf dem Spiel aus
+        }
+        if (bestMove == null) {
+            bestMove = greedyMove(game, placements);
         }
 
-        System.out.println("Game Score: " + game.score());
-        System.out.println("Generated Possible Placements Count: " + placements.size());  // Hinzugefügt
-        return Optional.ofNullable(bestMove);
+        lastSearchRecord = new SearchRecord(game.lastTurn().getTurnNumber(), game.getCurrentPlayer(), bestMove,
+                bestScore, completedDepth, System.currentTimeMillis() - startTime, depthMillis,
+                completedDepth > 0 ? List.of(previousPv) : List.of(bestMove), totalStatistics());
+        if (verbosity != SearchVerbosity.OFF) {
+            System.out.println(lastSearchRecord.summary());
+        }
+        return Optional.of(bestMove);
     }
 
     /**
-     * Die Hauptmethode des Minimax-Algorithmus mit Alpha-Beta-Pruning.
-     *
-     * @param game             Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
-     * @param depth            Die aktuelle Suchtiefe.
-     * @param alpha            Der Alpha-Wert für Alpha-Beta-Pruning.
-     * @param beta             Der Beta-Wert für Alpha-Beta-Pruning.
-     * @param maximizingPlayer Ein boolescher Wert, der angibt, ob der Spieler maximiert oder minimiert.
-     * @param playerColor      Die Farbe des aktuellen Spielers.
-     * @return Der berechnete Score für den aktuellen Spielzustand.
-     */
-    private int minimax(Game game, int depth, int alpha, int beta, boolean maximizingPlayer, Color playerColor, List<Placement> placements) {
-        if (depth == 0 || game.isFinished()) {
-            int evaluation = evaluate(game, playerColor, placements);
-            System.out.println("Evaluated Score: " + evaluation);  // Hinzugefügt
-            return evaluate(game, playerColor, placements);
-        }
-
-        int bestScore;
-
-        if (maximizingPlayer) {
-            bestScore = Integer.MIN_VALUE;
-
-            for (Placement placement :placements) {
-                game.takeTurn(placement);
-                int score = minimax(game, depth - 1, alpha, beta, false, playerColor, placements);
-                game.undoLastTurn();
-                bestScore = Math.max(score, bestScore);
-                alpha = Math.max(alpha, bestScore);
+     * Hält einen Zug fest, der ohne Suche gewählt wurde.
+     */
+    private Placement immediateMove(Game game, Placement move, long startTime, String source) {
+        previousPv = new Placement[]{move};
+        lastSearchRecord = new SearchRecord(game.lastTurn().getTurnNumber(), game.getCurrentPlayer(), move, 0, 0,
+                System.currentTimeMillis() - startTime, List.of(), List.of(move), new SearchStatistics());
+        if (verbosity != SearchVerbosity.OFF) {
+            System.out.println("[search] turn " + lastSearchRecord.turnNumber() + " " + lastSearchRecord.player()
+                    + ": " + source + " move " + move);
+        }
+        return move;
+    }
 
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-        } else {
-            bestScore = Integer.MAX_VALUE;
+    /**
+     * @return Die Anzahl der Knoten der letzten Suche über alle Threads.
+     */
+    public long getLastSearchNodes() {
+        return lastSearchRecord == null ? 0 : lastSearchRecord.statistics().nodes();
+    }
 
-            for (Placement placement : placements) {
-                game.takeTurn(placement);
-                int score = minimax(game, depth - 1, alpha, beta, true, playerColor,placements);
-                game.undoLastTurn();
-                bestScore = Math.min(score, bestScore);
-                beta = Math.min(beta, bestScore);
+    /**
+     * @return Die letzte vollständig abgeschlossene Tiefe der letzten Suche.
+     */
+    public int getLastSearchDepth() {
+        return lastSearchRecord == null ? 0 : lastSearchRecord.depth();
+    }
 
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-        }
-        System.out.println("[minimax] Entered minimax with depth: " + depth + ", alpha: " + alpha + ", beta: " + beta + ", maximizingPlayer: " + maximizingPlayer + ", playerColor: " + playerColor);
+    /**
+     * @return Die Dauer der letzten Suche in Millisekunden.
+     */
+    public long getLastSearchMillis() {
+        return lastSearchRecord == null ? 0 : lastSearchRecord.millis();
+    }
 
+    /**
+     * @return Ergebnis und Kennzahlen der letzten Suche oder null, wenn noch nicht gesucht wurde.
+     */
+    public SearchRecord getLastSearchRecord() {
+        return lastSearchRecord;
+    }
 
-        System.out.println("[minimax] Returning best score: " + bestScore);
+    /**
+     * Legt fest, wie viel über die Suche ausgegeben wird. Standard ist der Wert der System-Property
+     * belal.search.verbosity oder TURN.
+     */
+    public void setVerbosity(SearchVerbosity verbosity) {
+        this.verbosity = verbosity;
+    }
 
-        return bestScore;
+    /**
+     * Ersetzt den Endspiel-Löser; null schaltet ihn ab.
+     */
+    public void setEndgameSolver(EndgameSolver endgameSolver) {
+        this.endgameSolver = endgameSolver;
     }
 
     /**
-     * Bewertet den aktuellen Spielzustand basierend auf verschiedenen Kriterien.
-     *
-     * @param game        Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
-     * @param playerColor Die Farbe des aktuellen Spielers.
-     * @return Die Bewertung des Spielzustands.
+     * Schaltet das Pondern ein oder aus. Ist es eingeschaltet, sucht der Agent nach jedem Zug im Hintergrund
+     * auf einer eigenen Kopie des Spiels weiter, bis der nächste calculateTurn-Aufruf kommt. Standard ist aus.
      */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering(null);
+        }
+    }
 
-    // Änderung der Parameter w1, w2, w3 hat keine Auswirkung auf die Bewertung
-    private int evaluate(Game game, Color playerColor, List<Placement> placements) {
-        int w1 = 1;
-        int w2 = 1;
-        int w3 = 1;
-        System.out.println("[evaluate] Evaluating game. Player color: " + playerColor);
-        int evaluation = 0;
+    /**
+     * @return Die Anzahl der Knoten, die vor dem letzten Zug im Hintergrund durchsucht wurden.
+     */
+    public long getLastPonderNodes() {
+        return lastPonderNodes;
+    }
 
-        evaluation += highestScore(placements);
+    /**
+     * @return Die Tiefe, bis zu der die Stellung des letzten Zuges schon beim Pondern durchsucht wurde, 0 ohne Treffer.
+     */
+    public int getLastPonderHitDepth() {
+        return lastPonderHitDepth;
+    }
 
-        // Die Größe des besetzten Gebietes berechnen
-     //  int occupiedAreaSize = calculateOccupiedAreaSize(game);
+    /**
+     * @return Ob gerade im Hintergrund gesucht wird.
+     */
+    boolean isPondering() {
+        return ponderTask != null && !ponderTask.isDone();
+    }
 
-        // Die Größe des besetzten Gebietes gewichten
-     //   evaluation += w2 * occupiedAreaSize;
+    /**
+     * Ersetzt das Eröffnungsbuch. Standard ist {@link OpeningBook#loadDefault()}.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
 
-        // Potenzielle Verluste
-       // evaluation -= w3 * potentialLossesWithoutCopyGame(game, playerColor);
-   //     System.out.println("[evaluate] Final evaluation score: " + evaluation); // Log the final evaluation score before returning it
-        return evaluation;
+    /**
+     * Wählt die Verfahren der selektiven Suche. Standard ist {@link SearchFeature#fromSystemProperty()}.
+     */
+    public void setSearchFeatures(Set<SearchFeature> searchFeatures) {
+        this.searchFeatures = searchFeatures.isEmpty() ? EnumSet.noneOf(SearchFeature.class) : EnumSet.copyOf(searchFeatures);
+    }
+
+    public Set<SearchFeature> getSearchFeatures() {
+        return EnumSet.copyOf(searchFeatures);
     }
 
     /**
-     * Berechnet die Größe des besetzten Gebiets des aktuellen Spielers.
+     * Ersetzt die Zeiteinteilung. Standard ist ein {@link TimeManager} mit Standardwerten.
+     */
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    /**
+     * Ersetzt die Bewertungsgewichte. Standard ist {@link Evaluation#loadDefault()}.
+     */
+    public void setEvaluation(Evaluation evaluation) {
+        this.evaluation = evaluation;
+    }
+
+    /**
+     * Durchsucht die Stellung ohne Zeitlimit genau bis zur angegebenen Tiefe. Die Transpositionstabelle
+     * wird vorher geleert, damit wiederholte Aufrufe vergleichbar bleiben. Mit mehreren Threads wird die
+     * Wurzel wie in {@link #calculateTurn} parallel durchsucht. Gedacht für Benchmarks.
      *
-     * @param game        Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
-     * @return Die Größe des besetzten Gebiets.
+     * @param game  Das Spiel, es ist danach unverändert.
+     * @param depth Die Suchtiefe.
+     * @return Der Score des besten Zuges.
+     */
+    int searchFixedDepth(Game game, int depth) {
+        stopPondering(game);
+        deadline = Long.MAX_VALUE;
+        stopped = false;
+        previousPv = new Placement[0];
+        transpositionTable.clear();
+        List<Placement> placements = generatePossiblePlacements(game, game.getCurrentPlayer());
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].prepare(i == 0 ? game : game.copy(), placements);
+            workers[i].depthLimitReached = false;
+        }
+        return workers.length == 1 ? workers[0].searchRoot(depth)
+                : searchRootParallel(depth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Vergisst die History, wenn an der Wurzel die andere Farbe sucht. Die Transpositionstabelle bleibt warm,
+     * ihre Einträge sind nach der Farbe an der Wurzel getrennt. Ohne die History der anderen Farbe ist das
+     * Ergebnis dasselbe wie bei einem neuen Agenten, solange die Tabelle nur Einträge der anderen Farbe enthält.
      */
-    private int calculateOccupiedAreaSize(Game game) {
-        Color playerColor = game.getCurrentPlayer();
-        Color ownedColor = playerColor == Color.Black ? Color.Black_Owned : Color.White_Owned;
+    private void useHistoryFor(Color player) {
+        if (player == historyPlayer) {
+            return;
+        }
+        for (SearchWorker worker : workers) {
+            worker.ordering.clear();
+        }
+        if (ponderWorker != null) {
+            ponderWorker.ordering.clear();
+        }
+        historyPlayer = player;
+    }
 
-        int occupiedAreaSize = 0;
-        Color[][] field = game.getBoard().getField();
+    /**
+     * @return Der gierige Flächenzug oder, falls das Spiel ihn ablehnt, der erste legale Zug.
+     */
+    private static Placement greedyMove(Game game, List<Placement> placements) {
+        return LookAheadAgent.greedyMove(game).filter(placements::contains).orElse(placements.get(0));
+    }
+
+    /**
+     * Startet das Pondern nach unserem Zug. Durchsucht werden die Stellungen nach den wahrscheinlichsten
+     * Antworten des Gegners, jeweils aus unserer Sicht, damit die Einträge der Transpositionstabelle
+     * zur nächsten Suche passen. Die vorhergesagte Antwort aus der Hauptvariante kommt zuerst, alle
+     * Antworten werden Tiefe für Tiefe reihum vertieft.
+     */
+    private void startPondering(Game game, Placement ourMove) {
+        Placement predicted = previousPv.length > 1 && previousPv[0].equals(ourMove) ? previousPv[1] : null;
+        Game ponderGame = game.copy();
+        if (!ponderGame.takeTurn(ourMove) || ponderGame.isFinished()) {
+            return;
+        }
+        List<Placement> replies = new ArrayList<>();
+        if (ponderGame.getCurrentPlayer() == game.getCurrentPlayer()) {
+            // Der Gegner kann nicht setzen, wir sind sofort wieder am Zug
+            replies.add(null);
+        } else {
+            replies.addAll(likelyReplies(ponderGame, predicted));
+        }
+        if (replies.isEmpty()) {
+            return;
+        }
+        if (ponderWorker == null) {
+            ponderWorker = new SearchWorker(false);
+            ponderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "minimax-ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        ponderResults.clear();
+        ponderNodes = 0;
+        stopped = false;
+        deadline = System.currentTimeMillis() + MAX_PONDER_MS;
+        useHistoryFor(game.getCurrentPlayer());
+        transpositionTable.newSearch();
+        ponderTask = ponderExecutor.submit(() -> ponder(ponderGame, replies));
+    }
 
-        for (int y = 0; y < 10; ++y) {
-            for (int x = 0; x < 10; ++x) {
-                if (field[y][x] == ownedColor) {
-                    occupiedAreaSize++;
+    /**
+     * @return Die vorhergesagte Antwort und danach die nach statischer Gebietsbewertung besten Antworten.
+     */
+    private List<Placement> likelyReplies(Game game, Placement predicted) {
+        Color opponent = game.getCurrentPlayer();
+        BitBoard bitBoard = BitBoard.of(game.getBoard());
+        Color owned = opponent.subColor();
+        long ownLow = bitBoard.low(opponent) | (owned == Color.None ? 0 : bitBoard.low(owned));
+        long ownHigh = bitBoard.high(opponent) | (owned == Color.None ? 0 : bitBoard.high(owned));
+
+        List<Placement> replies = new ArrayList<>(generatePossiblePlacements(game, opponent));
+        replies.sort(Comparator.comparingInt((Placement reply) ->
+                MoveOrdering.territoryScore(Footprints.indexOf(reply), ownLow, ownHigh)).reversed());
+        if (predicted != null && replies.remove(predicted)) {
+            replies.add(0, predicted);
+        }
+        return replies.subList(0, Math.min(PONDER_REPLIES, replies.size()));
+    }
+
+    private void ponder(Game game, List<Placement> replies) {
+        try {
+            for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+                boolean deeper = false;
+                for (Placement reply : replies) {
+                    if (reply != null && !game.takeTurn(reply)) {
+                        continue;
+                    }
+                    try {
+                        List<Placement> moves = generatePossiblePlacements(game, game.getCurrentPlayer());
+                        if (game.isFinished() || moves.isEmpty()) {
+                            continue;
+                        }
+                        long key = ZobristHash.hash(game);
+                        PonderResult previous = ponderResults.get(key);
+                        previousPv = previous != null ? previous.pv() : new Placement[0];
+                        ponderWorker.prepare(game, moves);
+                        ponderWorker.depthLimitReached = false;
+                        try {
+                            int score = ponderWorker.searchRoot(depth);
+                            ponderResults.put(key, new PonderResult(previousPv, depth, score));
+                        } finally {
+                            ponderNodes += ponderWorker.statistics.nodes;
+                        }
+                        deeper |= ponderWorker.depthLimitReached;
+                    } finally {
+                        if (reply != null) {
+                            game.undoLastTurn();
+                        }
+                    }
+                }
+                if (!deeper) {
+                    return;
                 }
             }
+        } catch (SearchTimeoutException e) {
+            // Abgebrochen durch den nächsten Zug
         }
-       // System.out.println("Occupied Area Size: " + occupiedAreaSize);  // Hinzugefügt
-        return occupiedAreaSize;
     }
 
     /**
-     * Berechnet die Differenz zwischen dem Score des letzten Zugs und dem aktuellen Score des Spielers.
+     * Beendet das Pondern und wartet, bis der Hintergrund-Thread sein Spiel wiederhergestellt hat.
      *
-     * @return Die Differenz im Score.
-
-    private int calculateScoreDifference(Game game) {
-        Color playerColor = game.getCurrentPlayer();
-        Map<Color, Integer> lastTurnScore = game.lastTurn().score();
-        Map<Color, Integer> gameScore = game.score();
+     * @param game Die Stellung, für die jetzt gesucht wird, oder null.
+     * @return Das Ponder-Ergebnis für genau diese Stellung oder null.
+     */
+    private PonderResult stopPondering(Game game) {
+        if (ponderTask == null) {
+            return null;
+        }
+        stopped = true;
+        try {
+            ponderTask.get();
+        } catch (ExecutionException e) {
+            System.err.println("[ponder] " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ponderTask = null;
+        lastPonderNodes = ponderNodes;
+        PonderResult result = game == null ? null : ponderResults.get(ZobristHash.hash(game));
+        lastPonderHitDepth = result == null ? 0 : result.depth();
+        if (verbosity != SearchVerbosity.OFF) {
+            System.out.println("[ponder] " + lastPonderNodes + " nodes, "
+                    + (result == null ? "miss" : "hit at depth " + result.depth()));
+        }
+        ponderResults.clear();
+        return result;
+    }
 
-        Integer lastGameScore = lastTurnScore.get(playerColor);
-        Integer currentGameScore = gameScore.get(playerColor);
+    /**
+     * Ergebnis des Ponderns für eine Stellung.
+     *
+     * @param pv    Die Hauptvariante der tiefsten abgeschlossenen Suche.
+     * @param depth Die tiefste abgeschlossene Tiefe.
+     * @param score Der Score aus unserer Sicht.
+     */
+    private record PonderResult(Placement[] pv, int depth, int score) {
+    }
 
-        if (lastGameScore == null) {
-            lastGameScore = 0; // Wenn der Spieler beim letzten Zug keine Punkte hatte, setze den Score auf 0
+    /**
+     * Durchsucht eine Tiefe. Mit {@link SearchFeature#ASPIRATION} zunächst in einem Fenster um den Score der
+     * vorherigen Tiefe; fällt der Score heraus, wird das Fenster auf der betroffenen Seite vervierfacht und
+     * zuletzt ganz geöffnet.
+     *
+     * @return Der Score des besten Zuges.
+     */
+    private int searchIteration(int depth, int previousScore) {
+        boolean aspiration = searchFeatures.contains(SearchFeature.ASPIRATION) && previousScore != Integer.MIN_VALUE;
+        int lowerDelta = ASPIRATION_WINDOW;
+        int upperDelta = ASPIRATION_WINDOW;
+        int alpha = aspiration ? previousScore - lowerDelta : Integer.MIN_VALUE;
+        int beta = aspiration ? previousScore + upperDelta : Integer.MAX_VALUE;
+        for (int attempt = 0; ; attempt++) {
+            int score = workers.length == 1 ? workers[0].searchRoot(depth, alpha, beta) : searchRootParallel(depth, alpha, beta);
+            boolean failLow = alpha != Integer.MIN_VALUE && score <= alpha;
+            boolean failHigh = beta != Integer.MAX_VALUE && score >= beta;
+            if (!failLow && !failHigh) {
+                return score;
+            }
+            workers[0].statistics.researches++;
+            if (failLow) {
+                lowerDelta *= 4;
+                alpha = attempt + 1 >= ASPIRATION_RETRIES ? Integer.MIN_VALUE : previousScore - lowerDelta;
+            } else {
+                upperDelta *= 4;
+                beta = attempt + 1 >= ASPIRATION_RETRIES ? Integer.MAX_VALUE : previousScore + upperDelta;
+            }
         }
+    }
 
-        if (currentGameScore == null) {
-            currentGameScore = 0; // Wenn der Spieler in der aktuellen Situation keine Punkte hat, setze den Score auf 0
+    /**
+     * Verteilt die Wurzelzüge auf alle Worker. Der erste Zug wird allein durchsucht, um ein Alpha
+     * für die übrigen Züge zu erhalten. Jeder weitere Zug wird mit dem Fenster (alpha - 1, +unendlich)
+     * durchsucht, damit alle Züge mit dem besten Score exakt bewertet werden. Bei Gleichstand gewinnt der
+     * Zug, der in der Sortierung zuerst kommt, wie bei der sequentiellen Suche.
+     *
+     * @param alphaStart Die untere Fenstergrenze, Integer.MIN_VALUE für ein offenes Fenster.
+     * @param beta       Die obere Fenstergrenze, Integer.MAX_VALUE für ein offenes Fenster.
+     * @return Der Score des besten Zuges.
+     */
+    private int searchRootParallel(int depth, int alphaStart, int beta) {
+        SearchWorker main = workers[0];
+        long key = main.tableKey();
+        long entry = transpositionTable.probe(key);
+        main.orderRoot(entry);
+        List<Placement> ordered = new ArrayList<>(main.rootCount);
+        for (int i = 0; i < main.rootCount; i++) {
+            ordered.add(Footprints.placement(main.rootMoves[i]));
         }
+        int count = ordered.size();
+        int[] scores = new int[count];
+        Placement[][] pvs = new Placement[count][];
+        AtomicInteger alpha = new AtomicInteger(alphaStart);
 
-        System.out.println("Last Game Score: " + lastGameScore);
-        System.out.println("Current Game Score: " + currentGameScore);
-        System.out.println("Current Player Color: " + playerColor);
+        // Young Brothers Wait: erst der älteste Bruder, dann alle weiteren parallel
+        AtomicInteger next = new AtomicInteger(0);
+        searchRootMoves(main, depth, ordered.subList(0, 1), next, alpha, beta, scores, pvs);
 
-        int difference = currentGameScore - lastGameScore;
-        System.out.println("Score Difference: " + difference);
+        next.set(1);
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(workers.length - 1, runnable -> {
+                Thread thread = new Thread(runnable, "minimax-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            SearchWorker worker = workers[i];
+            futures.add(executor.submit(() -> searchRootMoves(worker, depth, ordered, next, alpha, beta, scores, pvs)));
+        }
+        RuntimeException failure = null;
+        try {
+            searchRootMoves(main, depth, ordered, next, alpha, beta, scores, pvs);
+        } catch (RuntimeException e) {
+            stopped = true;
+            failure = e;
+        }
+        // Auf alle Worker warten, damit deren Spiele wiederhergestellt sind, bevor die nächste Tiefe beginnt
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                stopped = true;
+                if (failure == null || failure instanceof SearchTimeoutException) {
+                    failure = e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+                failure = new SearchTimeoutException();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
 
-        return difference;
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (pvs[i] != null && (best < 0 || scores[i] > scores[best])) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            throw new IllegalStateException("No legal root move");
+        }
+        byte bound = rootBound(scores[best], alphaStart, beta);
+        // Nach einem Fail-Low ist die Variante nicht aussagekräftig, die bisherige bleibt für die Sortierung
+        if (bound != TranspositionTable.UPPER_BOUND) {
+            previousPv = pvs[best];
+        }
+        transpositionTable.store(key, depth, bound, scores[best], main.canonicalMove(Footprints.indexOf(pvs[best][0])));
+        return scores[best];
     }
+
+    /**
+     * @return Die Art des Wurzel-Scores für die Transpositionstabelle; außerhalb des Fensters ist er nur eine Schranke.
      */
-    private int highestScore(List<Placement> placements) {
-        int highestScore = -1;
+    private static byte rootBound(int score, int alpha, int beta) {
+        return alpha != Integer.MIN_VALUE && score <= alpha ? TranspositionTable.UPPER_BOUND
+                : beta != Integer.MAX_VALUE && score >= beta ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+    }
 
-        for (Placement placement : placements) {
-            int currentScore = placement.building().score();
+    /**
+     * Holt Wurzelzüge aus der gemeinsamen Liste, bis sie erschöpft ist, und durchsucht sie.
+     */
+    private void searchRootMoves(SearchWorker worker, int depth, List<Placement> ordered, AtomicInteger next,
+                                 AtomicInteger alpha, int beta, int[] scores, Placement[][] pvs) {
+        for (int i = next.getAndIncrement(); i < ordered.size(); i = next.getAndIncrement()) {
+            int current = alpha.get();
+            int window = current == Integer.MIN_VALUE ? Integer.MIN_VALUE : current - 1;
+            Placement placement = ordered.get(i);
+            OptionalInt score = worker.searchRootMove(placement, depth, window, beta);
+            if (score.isPresent()) {
+                scores[i] = score.getAsInt();
+                pvs[i] = Arrays.copyOf(worker.pvTable[0], worker.pvLength[0]);
+                alpha.accumulateAndGet(score.getAsInt(), Math::max);
+            }
+        }
+    }
 
-            if (currentScore > highestScore) {
-                highestScore = currentScore;
+    private SearchStatistics totalStatistics() {
+        SearchStatistics total = new SearchStatistics();
+        for (SearchWorker worker : workers) {
+            total.add(worker.statistics);
+        }
+        return total;
+    }
+
+    private boolean anyDepthLimitReached() {
+        for (SearchWorker worker : workers) {
+            if (worker.depthLimitReached) {
+                return true;
             }
         }
+        return false;
+    }
 
-        return highestScore;
+    private Placement pvMove(int ply) {
+        return ply < previousPv.length ? previousPv[ply] : null;
     }
 
     /**
-     * Berechnet potenzielle Verluste ohne die Kopie des Spiels zu verwenden.
-     *
-     * @param game        Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
-     * @param playerColor Die Farbe
-     */
-    private int potentialLossesWithoutCopyGame(Game game, Color playerColor) {
-        int lastGameScore = game.lastTurn().score().get(playerColor);
-        int gameScore = game.score().get(playerColor);
-        if (lastGameScore < gameScore) {
-            int losses = gameScore - lastGameScore;
-            System.out.println("Potential Losses Without Copy Game: " + losses);  // Hinzugefügt
-            return gameScore - lastGameScore;
-        } else {
-            return 0;
-        }
+     * @return Der Footprint-Index des Zuges der vorherigen Hauptvariante oder -1.
+     */
+    private int pvMoveIndex(int ply) {
+        Placement placement = pvMove(ply);
+        return placement == null ? -1 : Footprints.indexOf(placement);
     }
 
     /**
-     * Berechnet potenzielle Verluste mit einer Kopie des Spiels.
-     *
-     * @param game        Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
-     * @param playerColor Die Farbe des aktuellen Spielers.
-     * @return Die potenziellen Verluste.
+     * Suchzustand eines Threads: eigenes Spiel, eigener Zobrist-Hash und eigene Hauptvariante.
      */
-    /*private int potentialLosses(Game game, Color playerColor) {
-        int potentialLosses = 0;
+    private final class SearchWorker {
+        private final ZobristHash zobrist = new ZobristHash(MAX_DEPTH);
+        private final AreaTracker areas = new AreaTracker(MAX_DEPTH);
+        private final RegionTracker regionTracker = new RegionTracker(MAX_DEPTH);
+        // Die leeren Regionen, nur gepflegt, wenn die Bewertung sie nutzt, sonst null
+        private RegionTracker regions;
+        // Dreieckstabelle zum Aufbau der Hauptvariante während der Suche
+        private final Placement[][] pvTable = new Placement[MAX_DEPTH + 1][MAX_DEPTH + 1];
+        private final int[] pvLength = new int[MAX_DEPTH + 1];
+        private final boolean exactDepthProbe;
 
-        // Get the set of current placable buildings
-        List<Building> currentBuildings = game.getPlacableBuildings(playerColor);
+        private Game game;
+        private Color playerColor;
+        private long rootKey;
+        private final MoveOrdering ordering = new MoveOrdering(MAX_DEPTH);
+        private final MoveGenerator generator = new MoveGenerator(MAX_DEPTH);
+        // Zugpuffer pro Ebene, damit die Sortierung ohne Allokation auskommt
+        private final int[][] moveBuffers = new int[MAX_DEPTH + 1][Footprints.count()];
+        private List<Placement> placements;
+        private int[] rootMoves = new int[0];
+        private int rootCount;
+        private final SearchStatistics statistics = new SearchStatistics();
+        private int clockCounter;
+        private boolean depthLimitReached;
+        private boolean pvs;
+        private boolean lmr;
+        private boolean beam;
+
+        SearchWorker(boolean exactDepthProbe) {
+            this.exactDepthProbe = exactDepthProbe;
+        }
 
-        // Suche nach jedem möglichen Zug des Gegners
-        for (Placement placement : generatePossiblePlacements(game, getOpponentColor(playerColor))) {
-            Game hypotheticalGame = game.copy();  //Simulate the enemy's move
-            hypotheticalGame.takeTurn(placement);
+        void prepare(Game game, List<Placement> placements) {
+            this.game = game;
+            this.placements = placements;
+            rootMoves = moveBuffers[0];
+            rootCount = 0;
+            areas.reset(game);
+            regions = evaluation.usesRegions() ? regionTracker : null;
+            if (regions != null) {
+                regions.reset(game, areas);
+            }
+            zobrist.reset(game);
+            // Züge mit gleicher Belegung führen zur selben Stellung, durchsucht wird nur ein Vertreter
+            for (Placement placement : placements) {
+                int index = Footprints.indexOf(placement);
+                if (index >= 0 && Symmetry.isRepresentative(index)) {
+                    rootMoves[rootCount++] = index;
+                }
+            }
+            ordering.newSearch();
+            playerColor = game.getCurrentPlayer();
+            rootKey = ZobristHash.rootKey(playerColor);
+            generator.reset(areas);
+            statistics.reset();
+            pvs = searchFeatures.contains(SearchFeature.PVS);
+            lmr = searchFeatures.contains(SearchFeature.LMR);
+            beam = searchFeatures.contains(SearchFeature.BEAM);
+        }
 
-            // Zählt die Anzahl der eigenen Gebäude vor und nach dem Zug des Gegners
-            List<Building> numberOfBuildingsAfter = hypotheticalGame.getPlacableBuildings(playerColor);
+        /**
+         * Durchsucht alle Züge der Wurzel bis zur angegebenen Tiefe. Der erste Zug der
+         * Hauptvariante der vorherigen Tiefe wird zuerst untersucht.
+         *
+         * @return Der Score des besten Zuges.
+         */
+        int searchRoot(int depth) {
+            return searchRoot(depth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
 
-            // Create a new set from the current buildings and removes all buildings still placable after opponent's turn
-            Set<Building> lostBuildings = new HashSet<>(currentBuildings);
-            lostBuildings.removeAll(numberOfBuildingsAfter);
+        /**
+         * Durchsucht die Wurzel im Fenster (alphaStart, beta). Liegt der Score außerhalb, ist er nur eine
+         * Schranke und die Suche muss mit weiterem Fenster wiederholt werden.
+         */
+        int searchRoot(int depth, int alphaStart, int beta) {
+            int alpha = alphaStart;
+            int bestScore = Integer.MIN_VALUE;
+            Placement[] bestPv = null;
+            long key = tableKey();
+            long entry = transpositionTable.probe(key);
+            orderRoot(entry);
 
-            // Gehe durch alle Gebäude, die potenziell verloren gehen könnten
-            for (Building building : lostBuildings) {
-                // Addiere die Größe des Gebäudes zu den potenziellen Verlusten hinzu
-                potentialLosses += building.score();
+            for (int i = 0; i < rootCount; i++) {
+                Placement placement = Footprints.placement(rootMoves[i]);
+                // PVS: nach dem ersten Zug nur prüfen, ob der Zug alpha übertrifft
+                boolean nullWindow = pvs && bestPv != null && alpha != Integer.MIN_VALUE;
+                OptionalInt result = searchRootMove(placement, depth, alpha, nullWindow ? alpha + 1 : beta);
+                if (result.isEmpty()) {
+                    continue;
+                }
+                int score = result.getAsInt();
+                if (nullWindow && score > alpha && score < beta) {
+                    statistics.researches++;
+                    score = searchRootMove(placement, depth, alpha, beta).getAsInt();
+                }
+                if (score > bestScore || bestPv == null) {
+                    bestScore = score;
+                    bestPv = Arrays.copyOf(pvTable[0], pvLength[0]);
+                }
+                alpha = Math.max(alpha, bestScore);
+                if (bestScore >= beta) {
+                    break;
+                }
+            }
+            if (bestPv == null) {
+                throw new IllegalStateException("No legal root move");
+            }
+            byte bound = rootBound(bestScore, alphaStart, beta);
+            if (bound != TranspositionTable.UPPER_BOUND) {
+                previousPv = bestPv;
             }
+            transpositionTable.store(key, depth, bound, bestScore, canonicalMove(Footprints.indexOf(bestPv[0])));
+            return bestScore;
         }
 
-        return potentialLosses;
-    }*/
-
-    /**
-     * Gibt die Farbe des Gegners zurück.
-     *
-     * @param playerColor Die Farbe des aktuellen Spielers.
-     * @return Die Farbe des Gegners.
-     */
-  /*  private Color getOpponentColor(Color playerColor) {
-        if (playerColor == Color.Black) {
-            return Color.White;
-        } else {
-            return Color.Black;
+        /**
+         * Sortiert die Wurzelzüge, der Zug der vorherigen Hauptvariante kommt zuerst.
+         *
+         * @param entry Der Eintrag der Transpositionstabelle für die Wurzel oder 0.
+         */
+        void orderRoot(long entry) {
+            ordering.order(rootMoves, rootCount, 0, pvMoveIndex(0), tableMove(entry), areas, playerColor);
         }
-    }*/
 
+        /**
+         * @return Der Zug in der Lage der kanonischen Stellung, wie er in der Transpositionstabelle steht.
+         */
+        int canonicalMove(int move) {
+            return Symmetry.move(zobrist.transform(), move);
+        }
 
-    private List<Placement> generatePossiblePlacements(Game game, Color playerColor) {
-        // Maximale Anzahl der Platzierungen definieren
-        int maxPlacements = 550;
+        /**
+         * @return Der Schlüssel der aktuellen Stellung in der Transpositionstabelle, abhängig von der Farbe an
+         * der Wurzel, weil die Bewertung nicht symmetrisch ist.
+         */
+        long tableKey() {
+            return zobrist.canonical() ^ rootKey;
+        }
 
-        // Variablen initialisieren
-        Color ownedColor = playerColor == Color.Black ? Color.Black_Owned : Color.White_Owned;
-        LinkedList<Placement> placements = new LinkedList<>();
-        List<Building> buildings = new ArrayList<>(game.getPlacableBuildings(playerColor));
+        /**
+         * @return Der Zug eines Tabelleneintrags, zurück in die Lage der aktuellen Stellung abgebildet, oder -1.
+         */
+        int tableMove(long entry) {
+            return entry == 0 ? -1 : Symmetry.move(Symmetry.inverse(zobrist.transform()), TranspositionTable.moveIndex(entry));
+        }
 
-        // Sortiere die Gebäude nach Größe in absteigender Reihenfolge
-        buildings.sort((building1, building2) -> Integer.compare(building2.score(), building1.score()));
+        /**
+         * Durchsucht einen einzelnen Wurzelzug. Die Hauptvariante steht danach in pvTable[0].
+         *
+         * @return Der Score des Zuges oder leer, wenn der Zug nicht ausführbar ist.
+         */
+        OptionalInt searchRootMove(Placement placement, int depth, int alpha, int beta) {
+            pvLength[0] = 0;
+            checkTime();
+            if (!play(placement)) {
+                return OptionalInt.empty();
+            }
+            int score;
+            try {
+                score = minimax(depth - 1, 1, alpha, beta, placement.equals(pvMove(0)));
+            } finally {
+                unplay();
+            }
+            updatePv(0, placement);
+            return OptionalInt.of(score);
+        }
 
-        for (Building building : buildings) {
-            for (int y = 0; y < 10; ++y) {
-                for (int x = 0; x < 10; ++x) {
+        /**
+         * Die Hauptmethode des Minimax-Algorithmus mit Alpha-Beta-Pruning.
+         *
+         * @param depth            Die verbleibende Suchtiefe.
+         * @param ply              Der Abstand zur Wurzel.
+         * @param alpha            Der Alpha-Wert für Alpha-Beta-Pruning.
+         * @param beta             Der Beta-Wert für Alpha-Beta-Pruning.
+         * @param onPv             Ob der Knoten auf der Hauptvariante der vorherigen Tiefe liegt.
+         * @return Der berechnete Score für den aktuellen Spielzustand.
+         */
+        private int minimax(int depth, int ply, int alpha, int beta, boolean onPv) {
+            statistics.nodes++;
+            pvLength[ply] = 0;
 
-                    if (placements.size() >= maxPlacements) {
-                        return placements;
+            if (game.isFinished()) {
+                statistics.leaves++;
+                return terminalScore(areas.score(opponent(playerColor)) - areas.score(playerColor));
+            }
+            long key = tableKey();
+            long entry = transpositionTable.probe(key);
+            statistics.ttProbes++;
+            int ttMove = -1;
+            if (entry != 0) {
+                statistics.ttHits++;
+                ttMove = tableMove(entry);
+                int entryDepth = TranspositionTable.depth(entry);
+                if (exactDepthProbe ? entryDepth == depth : entryDepth >= depth) {
+                    int ttScore = TranspositionTable.score(entry);
+                    byte bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && ttScore >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && ttScore <= alpha)) {
+                        // Der Teilbaum wurde evtl. tiefenbegrenzt durchsucht, daher nicht als vollständig werten
+                        depthLimitReached = true;
+                        statistics.ttCutoffs++;
+                        return ttScore;
                     }
+                }
+            }
 
-                    for (Direction direction : Direction.values()) {
-                        Placement potentialPlacement = new Placement(new Position(x, y), direction, building);
-                        Board gameBoardCopy = game.getBoard().copy();
+            if (depth == 0 || ply >= MAX_DEPTH) {
+                depthLimitReached = true;
+                statistics.leaves++;
+                return evaluate(areas, regions, playerColor, game.getCurrentPlayer());
+            }
 
-                        if (gameBoardCopy.placeBuilding(potentialPlacement, true)) {
-                            if (!(game.getBoard().getField()[y][x] == playerColor || game.getBoard().getField()[y][x] == ownedColor)) {
-                                placements.addFirst(potentialPlacement); // Füge zur Anfang der Liste hinzu
-                            } else {
-                                placements.addLast(potentialPlacement); // Füge zur Ende der Liste hinzu
-                            }
-                        }
-                    }
+            // Kann ein Spieler nicht setzen, ist der andere erneut am Zug; es zählt also der Spieler am Zug
+            Color sideToMove = game.getCurrentPlayer();
+            boolean maximizingPlayer = sideToMove == playerColor;
+            int alphaOrig = alpha;
+            int betaOrig = beta;
+            int bestScore = maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            int bestMove = -1;
+            int pvMove = onPv ? pvMoveIndex(ply) : -1;
+
+            int[] moves = moveBuffers[ply];
+            int count = generator.generate(sideToMove, zobrist, moves);
+            ordering.order(moves, count, ply, pvMove, ttMove, areas, sideToMove);
+
+            int searched = 0;
+            int smallSearched = 0;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                boolean small = Footprints.building(move).score() <= BEAM_SMALL_BUILDING;
+                if (beam && small && smallSearched >= BEAM_WIDTH && move != ttMove) {
+                    statistics.beamSkips++;
+                    continue;
+                }
+                Placement placement = Footprints.placement(move);
+                checkTime();
+                if (!play(placement)) {
+                    continue;
+                }
+                statistics.moves++;
+                int score;
+                try {
+                    score = searchMove(move, depth, ply, alpha, beta, maximizingPlayer, searched,
+                            onPv && move == pvMove, move == pvMove || move == ttMove);
+                } finally {
+                    unplay();
+                }
+                searched++;
+                if (small) {
+                    smallSearched++;
+                }
+
+                if (bestMove < 0 || (maximizingPlayer ? score > bestScore : score < bestScore)) {
+                    bestScore = score;
+                    bestMove = move;
+                    updatePv(ply, placement);
+                }
+                if (maximizingPlayer) {
+                    alpha = Math.max(alpha, bestScore);
+                } else {
+                    beta = Math.min(beta, bestScore);
+                }
+                if (beta <= alpha) {
+                    statistics.cutoffs++;
+                    ordering.cutoff(move, ply, depth);
+                    break;
+                }
+            }
+
+            // Kein Zug war ausführbar, die Stellung wird wie ein Blatt bewertet
+            if (bestMove < 0) {
+                statistics.leaves++;
+                return evaluate(areas, regions, playerColor, game.getCurrentPlayer());
+            }
+            statistics.expanded++;
+
+            byte bound = bestScore <= alphaOrig ? TranspositionTable.UPPER_BOUND
+                    : bestScore >= betaOrig ? TranspositionTable.LOWER_BOUND
+                    : TranspositionTable.EXACT;
+            transpositionTable.store(key, depth, bound, bestScore, canonicalMove(bestMove));
+            return bestScore;
+        }
+
+        /**
+         * Durchsucht den Teilbaum nach einem bereits ausgeführten Zug. Ohne PVS und LMR ist das eine
+         * Suche im vollen Fenster. Mit PVS wird nach dem ersten Zug nur im Nullfenster geprüft, ob der
+         * Zug das Fenster verbessert, mit LMR werden späte Züge ohne Gebietsgewinn zusätzlich flacher
+         * durchsucht. Verbessert ein solcher Zug das Fenster, wird er voll nachgesucht.
+         *
+         * @param searched  Die Anzahl der in diesem Knoten bereits durchsuchten Züge.
+         * @param preferred Ob der Zug aus Hauptvariante oder Transpositionstabelle stammt.
+         */
+        private int searchMove(int move, int depth, int ply, int alpha, int beta, boolean maximizingPlayer,
+                               int searched, boolean childOnPv, boolean preferred) {
+            // Ohne Schranke auf der eigenen Seite gibt es kein Nullfenster
+            boolean bounded = maximizingPlayer ? alpha != Integer.MIN_VALUE : beta != Integer.MAX_VALUE;
+            if (searched == 0 || !bounded) {
+                return minimax(depth - 1, ply + 1, alpha, beta, childOnPv);
+            }
+            int reduction = 0;
+            if (lmr && depth >= LMR_MIN_DEPTH && searched >= LMR_FULL_MOVES && !preferred
+                    && areas.lastChangeCount() <= Footprints.building(move).score()) {
+                reduction = searched >= LMR_LATE_MOVES && depth > LMR_MIN_DEPTH ? 2 : 1;
+            }
+            if (!pvs && reduction == 0) {
+                return minimax(depth - 1, ply + 1, alpha, beta, childOnPv);
+            }
+            // Nullfenster auf der Seite, die der Knoten verbessern will
+            int probeAlpha = pvs ? (maximizingPlayer ? alpha : beta - 1) : alpha;
+            int probeBeta = pvs ? (maximizingPlayer ? alpha + 1 : beta) : beta;
+            int score = minimax(depth - 1 - reduction, ply + 1, probeAlpha, probeBeta, childOnPv);
+            boolean improves = maximizingPlayer ? score > alpha : score < beta;
+            if (reduction > 0) {
+                statistics.reductions++;
+                if (!improves) {
+                    return score;
+                }
+                statistics.researches++;
+                score = minimax(depth - 1, ply + 1, probeAlpha, probeBeta, childOnPv);
+                improves = maximizingPlayer ? score > alpha : score < beta;
+            }
+            if (pvs && improves && score > alpha && score < beta) {
+                statistics.researches++;
+                score = minimax(depth - 1, ply + 1, alpha, beta, childOnPv);
+            }
+            return score;
+        }
+
+        /**
+         * Führt einen Zug aus und aktualisiert Flächen und Hash.
+         *
+         * @return false, wenn das Spiel den Zug ablehnt.
+         */
+        private boolean play(Placement placement) {
+            if (!game.takeTurn(placement)) {
+                return false;
+            }
+            areas.apply(game, placement);
+            if (regions != null) {
+                regions.apply(game, areas, placement);
+            }
+            generator.apply(areas);
+            zobrist.push();
+            zobrist.update(game, placement, areas);
+            return true;
+        }
+
+        /**
+         * Nimmt den zuletzt mit play ausgeführten Zug zurück.
+         */
+        private void unplay() {
+            game.undoLastTurn();
+            areas.undo();
+            if (regions != null) {
+                regions.undo();
+            }
+            generator.undo();
+            zobrist.pop();
+        }
+
+        /**
+         * Bricht die Suche ab, sobald die Deadline überschritten ist oder ein anderer Worker abgebrochen hat.
+         * Die Uhr wird nur alle CLOCK_CHECK_INTERVAL Zugversuche abgefragt.
+         */
+        private void checkTime() {
+            if (stopped) {
+                throw new SearchTimeoutException();
+            }
+            if ((++clockCounter & (CLOCK_CHECK_INTERVAL - 1)) == 0 && System.currentTimeMillis() >= deadline) {
+                stopped = true;
+                throw new SearchTimeoutException();
+            }
+        }
+
+        private void updatePv(int ply, Placement placement) {
+            pvTable[ply][0] = placement;
+            int childLength = ply + 1 <= MAX_DEPTH ? pvLength[ply + 1] : 0;
+            System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, childLength);
+            pvLength[ply] = childLength + 1;
+        }
+    }
+
+    /**
+     * Signalisiert das Überschreiten der Deadline. Ohne Stacktrace, da sie regulär zum Abbruch dient.
+     */
+    private static final class SearchTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SearchTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Bewertet den aktuellen Spielzustand über den Merkmalsvektor von {@link Evaluation}.
+     * Alle Merkmale werden inkrementell von AreaTracker und RegionTracker geliefert, die Bewertung kostet
+     * also kein Durchsuchen des Bretts.
+     *
+     * @param areas       Die inkrementell gepflegten Flächen des aktuellen Spielzustands.
+     * @param regions     Die inkrementell gepflegten leeren Regionen oder null, wenn die Bewertung sie nicht nutzt.
+     * @param playerColor Die Farbe des Spielers, aus dessen Sicht bewertet wird.
+     * @param sideToMove  Die Farbe des Spielers am Zug.
+     * @return Die Bewertung des Spielzustands.
+     */
+    private int evaluate(AreaTracker areas, RegionTracker regions, Color playerColor, Color sideToMove) {
+        return evaluation.evaluate(areas, regions, playerColor, sideToMove);
+    }
+
+    /**
+     * Bewertet ein beendetes Spiel exakt nach dem Endstand, wie {@link EndgameSolver}. Jeder Sieg liegt über
+     * und jede Niederlage unter allen heuristischen Bewertungen, ein größerer Vorsprung ist besser.
+     *
+     * @param margin Der Vorsprung am Spielende wie bei {@link Game#score()}: die verbleibende Fläche des
+     *               Gegners minus die eigene.
+     * @return Der Score aus Sicht des Spielers mit diesem Vorsprung, 0 bei Gleichstand.
+     */
+    static int terminalScore(int margin) {
+        return Integer.signum(margin) * TERMINAL_SCORE + margin * Evaluation.SCALE;
+    }
+
+    private static Color opponent(Color player) {
+        return player == Color.Black ? Color.White : Color.Black;
+    }
+
+    /**
+     * Erzeugt alle Platzierungen des Spielers, die auf das aktuelle Brett passen. Die Liste ist vollständig
+     * und nicht sortiert; die Reihenfolge für die Suche bestimmt {@link MoveOrdering}.
+     *
+     * @param game        Das Spiel.
+     * @param playerColor Der Spieler, für den die Platzierungen erzeugt werden.
+     * @return Die Platzierungen in Footprint-Reihenfolge.
+     */
+    List<Placement> generatePossiblePlacements(Game game, Color playerColor) {
+        List<Placement> placements = new ArrayList<>();
+        // Legalität über die vorberechneten Masken prüfen statt über Brettkopien
+        BitBoard bitBoard = BitBoard.of(game.getBoard());
+        boolean[] seen = new boolean[Building.values().length];
+
+        for (Building building : game.getPlacableBuildings(playerColor)) {
+            if (seen[building.ordinal()]) {
+                continue;
+            }
+            seen[building.ordinal()] = true;
+
+            for (int footprint : Footprints.of(building)) {
+                if (bitBoard.canPlace(footprint)) {
+                    placements.add(Footprints.placement(footprint));
                 }
             }
         }
@@ -0,0 +1,409 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte-Carlo-Baumsuche mit UCT-Auswahl für Cathedral.
+ * Alle Züge (Auswahl, Expansion und Playout) werden mit takeTurn/undoLastTurn auf dem übergebenen Spiel
+ * ausgeführt und danach zurückgenommen, es wird also kein Spiel pro Schritt kopiert. Der Playout setzt
+ * bevorzugt die größten noch platzierbaren Gebäude. Der Teilbaum des tatsächlich gespielten Zugpaars wird
+ * in den nächsten Zug übernommen.
+ */
+public class MonteCarloTreeSearch {
+    private static final double EXPLORATION = Math.sqrt(2);
+    /** Wahrscheinlichkeit, im Playout das größte passende Gebäude statt eines zufälligen zu setzen. */
+    private static final double GREEDY_PLAYOUT_PROBABILITY = 0.8;
+    /** Anzahl der Iterationen zwischen zwei Abfragen der Uhr. */
+    private static final int CLOCK_CHECK_INTERVAL = 16;
+    /** Obergrenze für das Pondern, falls kein weiterer Zug angefragt wird. */
+    private static final long MAX_PONDER_MS = 60000;
+
+    private final Random random;
+    private final BitBoard bitBoard = new BitBoard();
+    private final int[] candidates = new int[Footprints.count()];
+
+    private Node root;
+    private Node chosen;
+    private int rootTurnNumber = -1;
+    private long lastPlayouts;
+
+    private ExecutorService ponderExecutor;
+    private Future<?> ponderTask;
+    private volatile boolean ponderStop;
+    private volatile long ponderPlayouts;
+
+    /**
+     * @param seed Der Seed für Expansion und Playouts.
+     */
+    public MonteCarloTreeSearch(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Sucht den besten Zug, bis die Deadline oder das Playout-Budget erreicht ist.
+     *
+     * @param game          Das Spiel; es wird während der Suche verändert und am Ende wiederhergestellt.
+     * @param deadline      Der Zeitpunkt (System.currentTimeMillis), an dem die Suche endet.
+     * @param playoutBudget Die maximale Anzahl an Playouts.
+     * @return Der am häufigsten besuchte Zug oder leer, wenn kein Zug möglich ist.
+     */
+    public Optional<Placement> search(Game game, long deadline, long playoutBudget) {
+        return search(game, deadline, deadline, playoutBudget);
+    }
+
+    /**
+     * Sucht den besten Zug mit Zielzeit und harter Grenze. Vor der Zielzeit endet die Suche, sobald der
+     * meistbesuchte Zug mit den bis zur Zielzeit erwarteten Playouts nicht mehr eingeholt werden kann.
+     * Nach der Zielzeit wird nur weitergesucht, solange der meistbesuchte nicht auch der Zug mit der besten
+     * mittleren Bewertung ist, höchstens bis zur harten Grenze.
+     *
+     * @param softDeadline Die Zielzeit (System.currentTimeMillis).
+     * @param deadline     Die harte Grenze (System.currentTimeMillis).
+     */
+    public Optional<Placement> search(Game game, long softDeadline, long deadline, long playoutBudget) {
+        stopPondering();
+        reuseOrCreateRoot(game);
+
+        long start = System.currentTimeMillis();
+        long playouts = 0;
+        while (playouts < playoutBudget) {
+            if (playouts % CLOCK_CHECK_INTERVAL == 0) {
+                long now = System.currentTimeMillis();
+                if (now >= deadline || playouts > 0 && settled(now, start, softDeadline, playouts)) {
+                    break;
+                }
+            }
+            iterate(game, root);
+            playouts++;
+            // Vollständig erforschter Baum ohne Kinder: es gibt keinen Zug
+            if (root.untried != null && root.untried.isEmpty() && root.children.isEmpty()) {
+                break;
+            }
+        }
+        lastPlayouts = playouts;
+
+        chosen = null;
+        for (Node child : root.children) {
+            if (chosen == null || child.visits > chosen.visits) {
+                chosen = child;
+            }
+        }
+        return chosen == null ? Optional.empty() : Optional.of(chosen.move);
+    }
+
+    /**
+     * @return true, wenn die Wahl an der Wurzel feststeht, siehe {@link #search(Game, long, long, long)}.
+     */
+    private boolean settled(long now, long start, long softDeadline, long playouts) {
+        Node first = null;
+        Node second = null;
+        Node bestValue = null;
+        for (Node child : root.children) {
+            if (first == null || child.visits > first.visits) {
+                second = first;
+                first = child;
+            } else if (second == null || child.visits > second.visits) {
+                second = child;
+            }
+            if (bestValue == null || child.reward / child.visits > bestValue.reward / bestValue.visits) {
+                bestValue = child;
+            }
+        }
+        if (first == null) {
+            return now >= softDeadline;
+        }
+        if (now >= softDeadline) {
+            return first == bestValue;
+        }
+        double expected = (double) playouts * (softDeadline - now) / Math.max(1, now - start);
+        return first.visits - (second == null ? 0 : second.visits) > expected;
+    }
+
+    /**
+     * Sucht nach dem gewählten Zug im Hintergrund weiter, auf einer eigenen Kopie des Spiels. Dabei wächst
+     * genau der Teilbaum unter dem gewählten Zug, also die Antworten des Gegners, den die nächste Suche
+     * übernimmt. Der nächste Aufruf von {@link #search} bricht das Pondern ab.
+     *
+     * @param game          Das Spiel vor dem gewählten Zug, wie es an search übergeben wurde.
+     * @param playoutBudget Die maximale Anzahl an Playouts im Hintergrund.
+     */
+    public void startPondering(Game game, long playoutBudget) {
+        stopPondering();
+        if (chosen == null) {
+            return;
+        }
+        Game ponderGame = game.copy();
+        if (!ponderGame.takeTurn(chosen.move) || ponderGame.isFinished()) {
+            return;
+        }
+        if (ponderExecutor == null) {
+            ponderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mcts-ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        Node start = chosen;
+        long deadline = System.currentTimeMillis() + MAX_PONDER_MS;
+        ponderStop = false;
+        ponderPlayouts = 0;
+        ponderTask = ponderExecutor.submit(() -> {
+            long playouts = 0;
+            while (!ponderStop && playouts < playoutBudget
+                    && (playouts % CLOCK_CHECK_INTERVAL != 0 || System.currentTimeMillis() < deadline)) {
+                iterate(ponderGame, start);
+                playouts++;
+                ponderPlayouts = playouts;
+                if (start.untried != null && start.untried.isEmpty() && start.children.isEmpty()) {
+                    break;
+                }
+            }
+        });
+    }
+
+    /**
+     * Beendet das Pondern und wartet, bis der Baum nicht mehr verändert wird.
+     */
+    public void stopPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+        ponderStop = true;
+        try {
+            ponderTask.get();
+        } catch (ExecutionException e) {
+            System.err.println("[ponder] " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ponderTask = null;
+    }
+
+    /**
+     * @return Ob gerade im Hintergrund gesucht wird.
+     */
+    boolean isPondering() {
+        return ponderTask != null && !ponderTask.isDone();
+    }
+
+    /**
+     * @return Die Besuche der Wurzel der letzten Suche, einschließlich der aus einem übernommenen Teilbaum.
+     */
+    int rootVisits() {
+        return root == null ? 0 : root.visits;
+    }
+
+    /**
+     * @return Die Anzahl der Playouts beim letzten Pondern.
+     */
+    public long getLastPonderPlayouts() {
+        return ponderPlayouts;
+    }
+
+    /**
+     * @return Die Anzahl der Playouts der letzten Suche.
+     */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * Übernimmt den Teilbaum nach unserem letzten Zug und der Antwort des Gegners, falls er zum Spiel passt.
+     */
+    private void reuseOrCreateRoot(Game game) {
+        int turnNumber = game.lastTurn().getTurnNumber();
+        Placement lastAction = game.lastTurn().getAction();
+        Node next = null;
+
+        if (chosen != null && lastAction != null) {
+            if (turnNumber == rootTurnNumber + 1 && lastAction.equals(chosen.move)) {
+                // Der Gegner konnte nicht setzen, wir sind direkt wieder am Zug
+                next = chosen;
+            } else if (turnNumber == rootTurnNumber + 2) {
+                next = chosen.child(lastAction);
+            }
+        }
+
+        root = next != null ? next : new Node(null, null, null);
+        root.parent = null;
+        rootTurnNumber = turnNumber;
+        chosen = null;
+    }
+
+    private void iterate(Game game, Node start) {
+        Node node = start;
+        int applied = 0;
+        try {
+            // Auswahl
+            while (node.untried != null && node.untried.isEmpty() && !node.children.isEmpty()) {
+                node = node.select();
+                game.takeTurn(node.move);
+                applied++;
+            }
+
+            // Expansion
+            if (node.untried == null) {
+                node.untried = game.isFinished() ? new ArrayList<>() : legalMoves(game);
+            }
+            while (!node.untried.isEmpty()) {
+                Placement move = node.untried.remove(node.untried.size() - 1);
+                Color before = game.getCurrentPlayer();
+                if (game.takeTurn(move)) {
+                    applied++;
+                    Node child = new Node(node, move, mover(before, game.getCurrentPlayer()));
+                    node.children.add(child);
+                    node = child;
+                    break;
+                }
+            }
+
+            // Playout
+            while (!game.isFinished() && playoutMove(game)) {
+                applied++;
+            }
+
+            // Rückpropagierung
+            Map<Color, Integer> score = game.score();
+            for (Node n = node; n != null; n = n.parent) {
+                n.visits++;
+                if (n.mover != null) {
+                    n.reward += reward(score, n.mover);
+                }
+            }
+        } finally {
+            for (int i = 0; i < applied; i++) {
+                game.undoLastTurn();
+            }
+        }
+    }
+
+    /**
+     * Setzt im Playout ein Gebäude: meist das größte, das noch passt, sonst ein zufälliges.
+     *
+     * @return true, wenn ein Zug ausgeführt wurde.
+     */
+    private boolean playoutMove(Game game) {
+        bitBoard.load(game.getBoard().getField());
+        List<Building> buildings = new ArrayList<>(game.getPlacableBuildings());
+        Collections.shuffle(buildings, random);
+        if (random.nextDouble() < GREEDY_PLAYOUT_PROBABILITY) {
+            buildings.sort(Comparator.comparingInt(Building::score).reversed());
+        }
+
+        for (Building building : buildings) {
+            int count = 0;
+            for (int footprint : Footprints.of(building)) {
+                if (bitBoard.canPlace(footprint)) {
+                    candidates[count++] = footprint;
+                }
+            }
+            while (count > 0) {
+                int pick = random.nextInt(count);
+                int footprint = candidates[pick];
+                candidates[pick] = candidates[--count];
+                if (game.takeTurn(Footprints.placement(footprint))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<Placement> legalMoves(Game game) {
+        Color[][] field = game.getBoard().getField();
+        bitBoard.load(field);
+        // Symmetrische Züge führen zu gleichwertigen Stellungen, expandiert wird nur ein Vertreter. Das
+        // Brett ist nur vor dem Kathedralenzug symmetrisch, danach bleiben die Züge mit gleicher Belegung
+        int stabilizer = Symmetry.stabilizer(field, Symmetry.allowed(game.getBoard()));
+        List<Placement> moves = new ArrayList<>();
+        boolean[] seen = new boolean[Building.values().length];
+        for (Building building : game.getPlacableBuildings()) {
+            if (seen[building.ordinal()]) {
+                continue;
+            }
+            seen[building.ordinal()] = true;
+            for (int footprint : Footprints.of(building)) {
+                if (bitBoard.canPlace(footprint) && Symmetry.isCanonical(footprint, stabilizer)) {
+                    moves.add(Footprints.placement(footprint));
+                }
+            }
+        }
+        Collections.shuffle(moves, random);
+        return moves;
+    }
+
+    /**
+     * Ermittelt die Farbe, aus deren Sicht ein Zug bewertet wird. Die Kathedrale gehört keinem Spieler,
+     * sie wird dem Spieler zugerechnet, der danach nicht am Zug ist.
+     */
+    private static Color mover(Color before, Color after) {
+        if (before != Color.Blue) {
+            return before;
+        }
+        return after == Color.Black ? Color.White : Color.Black;
+    }
+
+    /**
+     * Sieg 1, Unentschieden 0.5, Niederlage 0. Gewonnen hat, wer weniger Fläche übrig behält.
+     */
+    private static double reward(Map<Color, Integer> score, Color player) {
+        Color opponent = player == Color.Black ? Color.White : Color.Black;
+        int own = score.getOrDefault(player, 0);
+        int other = score.getOrDefault(opponent, 0);
+        return own < other ? 1.0 : own == other ? 0.5 : 0.0;
+    }
+
+    private static final class Node {
+        private Node parent;
+        private final Placement move;
+        private final Color mover;
+        private final List<Node> children = new ArrayList<>();
+        private List<Placement> untried;
+        private int visits;
+        private double reward;
+
+        Node(Node parent, Placement move, Color mover) {
+            this.parent = parent;
+            this.move = move;
+            this.mover = mover;
+        }
+
+        Node select() {
+            double logVisits = Math.log(visits);
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                double value = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        Node child(Placement placement) {
+            for (Node child : children) {
+                if (child.move.equals(placement)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inkrementelle Zuggenerierung für Schwarz und Weiß. Für jede Platzierung wird pro Farbe ein Bit
+ * gehalten, ob ihre Zellen frei oder im Besitz der Farbe sind. Nach einem Zug werden nur die
+ * Platzierungen neu geprüft, die eine geänderte Zelle berühren; das schließt neu erobertes Gebiet
+ * und entfernte Gebäude ein. Die Änderungen liegen auf einem Stapel und werden bei undo zurückgenommen.
+ * <p>
+ * Ob ein Gebäude noch verfügbar ist, wird erst beim Erzeugen geprüft. Das Spiel hat weiterhin das
+ * letzte Wort, takeTurn kann einen erzeugten Zug also noch ablehnen.
+ */
+public final class MoveGenerator {
+    private static final int CELLS = 100;
+    private static final int WORDS = (Footprints.count() + 63) >>> 6;
+    /** Die Platzierungen, die eine Zelle belegen, pro Zelle. */
+    private static final int[][] CELL_FOOTPRINTS = new int[CELLS][];
+    private static final Building[][] BUILDINGS = new Building[2][];
+
+    static {
+        List<List<Integer>> byCell = new ArrayList<>();
+        for (int cell = 0; cell < CELLS; cell++) {
+            byCell.add(new ArrayList<>());
+        }
+        for (int footprint = 0; footprint < Footprints.count(); footprint++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                long mask = cell < 64 ? Footprints.low(footprint) >>> cell : Footprints.high(footprint) >>> (cell - 64);
+                if ((mask & 1L) != 0) {
+                    byCell.get(cell).add(footprint);
+                }
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            CELL_FOOTPRINTS[cell] = byCell.get(cell).stream().mapToInt(Integer::intValue).toArray();
+        }
+        BUILDINGS[0] = Arrays.stream(Building.values()).filter(b -> b.getColor() == Color.Black).toArray(Building[]::new);
+        BUILDINGS[1] = Arrays.stream(Building.values()).filter(b -> b.getColor() == Color.White).toArray(Building[]::new);
+    }
+
+    // Index 0 für Schwarz, 1 für Weiß
+    private final long[][] fits = new long[2][WORDS];
+
+    private final int[] changedFootprints;
+    private final byte[] changedFrom;
+    private final int[] frameStart;
+    private final int[] stamps = new int[Footprints.count()];
+    private int stamp;
+    private int changeTop;
+    private int ply;
+
+    /**
+     * @param maxPly Die maximale Anzahl gleichzeitig angewendeter Züge.
+     */
+    public MoveGenerator(int maxPly) {
+        changedFootprints = new int[Footprints.count() * (maxPly + 1)];
+        changedFrom = new byte[Footprints.count() * (maxPly + 1)];
+        frameStart = new int[maxPly + 1];
+    }
+
+    /**
+     * Prüft alle Platzierungen gegen die Stellung des AreaTrackers.
+     */
+    public void reset(AreaTracker areas) {
+        for (long[] bits : fits) {
+            Arrays.fill(bits, 0);
+        }
+        for (int footprint = 0; footprint < Footprints.count(); footprint++) {
+            set(footprint, check(footprint, areas));
+        }
+        changeTop = 0;
+        ply = 0;
+    }
+
+    /**
+     * Übernimmt einen Zug, nachdem er auf den AreaTracker angewendet wurde.
+     */
+    public void apply(AreaTracker areas) {
+        frameStart[ply++] = changeTop;
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        for (int i = 0; i < areas.lastChangeCount(); i++) {
+            for (int footprint : CELL_FOOTPRINTS[areas.lastChangedCell(i)]) {
+                if (stamps[footprint] == stamp) {
+                    continue;
+                }
+                stamps[footprint] = stamp;
+                int now = check(footprint, areas);
+                int old = get(footprint);
+                if (now != old) {
+                    changedFootprints[changeTop] = footprint;
+                    changedFrom[changeTop] = (byte) old;
+                    changeTop++;
+                    set(footprint, now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Nimmt den zuletzt angewendeten Zug zurück.
+     */
+    public void undo() {
+        int start = frameStart[--ply];
+        while (changeTop > start) {
+            changeTop--;
+            set(changedFootprints[changeTop], changedFrom[changeTop]);
+        }
+    }
+
+    /**
+     * Schreibt die Platzierungen des Spielers, die auf das Brett passen und deren Gebäude noch verfügbar
+     * ist, in aufsteigender Footprint-Reihenfolge nach moves.
+     *
+     * @param player   Schwarz oder Weiß; für andere Farben gibt es keine Züge.
+     * @param unplaced Liefert die Anzahl der verfügbaren Exemplare eines Gebäudes.
+     * @param moves    Der Puffer für die Footprint-Indizes, mindestens {@link Footprints#count()} groß.
+     * @return Die Anzahl der Züge.
+     */
+    public int generate(Color player, ZobristHash unplaced, int[] moves) {
+        int side = side(player);
+        if (side < 0) {
+            return 0;
+        }
+        long[] bits = fits[side];
+        int count = 0;
+        for (Building building : BUILDINGS[side]) {
+            int[] footprints = Footprints.of(building);
+            if (footprints.length == 0 || unplaced.unplaced(building) == 0) {
+                continue;
+            }
+            // Die Platzierungen eines Gebäudes liegen zusammenhängend, siehe Footprints
+            int from = footprints[0];
+            int to = footprints[footprints.length - 1];
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                long w = bits[word];
+                if (word == from >>> 6) {
+                    w &= -1L << (from & 63);
+                }
+                if (word == to >>> 6) {
+                    w &= -1L >>> (63 - (to & 63));
+                }
+                while (w != 0) {
+                    moves[count++] = (word << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int side(Color player) {
+        return player == Color.Black ? 0 : player == Color.White ? 1 : -1;
+    }
+
+    /**
+     * @return Bit 0 gesetzt, wenn die Platzierung für Schwarz passt, Bit 1 für Weiß.
+     */
+    private static int check(int footprint, AreaTracker areas) {
+        long low = Footprints.low(footprint);
+        long high = Footprints.high(footprint);
+        long freeLow = areas.low(Color.None);
+        long freeHigh = areas.high(Color.None);
+        int result = 0;
+        if ((low & ~(freeLow | areas.low(Color.Black_Owned))) == 0 && (high & ~(freeHigh | areas.high(Color.Black_Owned))) == 0) {
+            result |= 1;
+        }
+        if ((low & ~(freeLow | areas.low(Color.White_Owned))) == 0 && (high & ~(freeHigh | areas.high(Color.White_Owned))) == 0) {
+            result |= 2;
+        }
+        return result;
+    }
+
+    private int get(int footprint) {
+        int word = footprint >>> 6;
+        long bit = 1L << footprint;
+        return ((fits[0][word] & bit) != 0 ? 1 : 0) | ((fits[1][word] & bit) != 0 ? 2 : 0);
+    }
+
+    private void set(int footprint, int value) {
+        int word = footprint >>> 6;
+        long bit = 1L << footprint;
+        fits[0][word] = (value & 1) != 0 ? fits[0][word] | bit : fits[0][word] & ~bit;
+        fits[1][word] = (value & 2) != 0 ? fits[1][word] | bit : fits[1][word] & ~bit;
+    }
+}
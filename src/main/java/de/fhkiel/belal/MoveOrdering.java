@@ -0,0 +1,130 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+
+import java.util.Arrays;
+
+/**
+ * Sortiert die Züge eines Knotens für die Alpha-Beta-Suche. Zuerst kommt der Zug der Hauptvariante,
+ * dann der Zug aus der Transpositionstabelle, dann die beiden Killer-Züge der Ebene. Alle übrigen Züge
+ * werden nach History-Wert und einer statischen Gebietsbewertung sortiert.
+ * <p>
+ * Killer und History gehören zu einem Such-Thread und werden nicht geteilt. Züge sind Footprint-Indizes,
+ * die History ist damit nach Gebäude, Richtung und Position aufgeteilt.
+ */
+public final class MoveOrdering {
+    private static final int PV_SCORE = 1 << 30;
+    private static final int HASH_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+    /** Obergrenze der History, darüber wird die ganze Tabelle halbiert. */
+    private static final int HISTORY_LIMIT = 1 << 26;
+    private static final int SIZE_WEIGHT = 4;
+    private static final int CONTACT_WEIGHT = 2;
+
+    private final int[][] killers;
+    private final int[] history = new int[Footprints.count()];
+    private final long[] keys = new long[Footprints.count()];
+
+    /**
+     * @param maxPly Die maximale Tiefe, für die Killer-Züge gespeichert werden.
+     */
+    public MoveOrdering(int maxPly) {
+        killers = new int[maxPly + 1][2];
+        clearKillers();
+    }
+
+    /**
+     * Bereitet eine neue Suche vor. Killer-Züge gelten nur für eine Stellung und werden gelöscht,
+     * die History wird halbiert, damit alte Erfahrungen langsam an Gewicht verlieren.
+     */
+    public void newSearch() {
+        clearKillers();
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Vergisst Killer und History vollständig, etwa wenn die nächste Suche für die andere Farbe läuft.
+     */
+    public void clear() {
+        clearKillers();
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Sortiert die Züge absteigend nach ihrer Bewertung. Bei gleicher Bewertung entscheidet der
+     * Footprint-Index, damit die Reihenfolge deterministisch ist.
+     *
+     * @param moves    Die Züge als Footprint-Indizes, werden an Ort und Stelle sortiert.
+     * @param count    Die Anzahl der gültigen Einträge in moves.
+     * @param ply      Der Abstand zur Wurzel.
+     * @param pvMove   Der Zug der Hauptvariante oder -1.
+     * @param hashMove Der Zug aus der Transpositionstabelle oder -1.
+     * @param areas    Die Flächen der aktuellen Stellung.
+     * @param player   Der Spieler am Zug.
+     */
+    public void order(int[] moves, int count, int ply, int pvMove, int hashMove, AreaTracker areas, Color player) {
+        Color owned = player.subColor();
+        long ownLow = areas.low(player) | (owned == Color.None ? 0 : areas.low(owned));
+        long ownHigh = areas.high(player) | (owned == Color.None ? 0 : areas.high(owned));
+        int[] plyKillers = killers[Math.min(ply, killers.length - 1)];
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int score;
+            if (move == pvMove) {
+                score = PV_SCORE;
+            } else if (move == hashMove) {
+                score = HASH_SCORE;
+            } else if (move == plyKillers[0]) {
+                score = KILLER_SCORE;
+            } else if (move == plyKillers[1]) {
+                score = KILLER_SCORE - 1;
+            } else {
+                score = history[move] + territoryScore(move, ownLow, ownHigh);
+            }
+            keys[i] = (-(long) score << 16) | move;
+        }
+        Arrays.sort(keys, 0, count);
+        for (int i = 0; i < count; i++) {
+            moves[i] = (int) (keys[i] & 0xFFFF);
+        }
+    }
+
+    /**
+     * Merkt sich einen Zug, der einen Beta-Schnitt ausgelöst hat.
+     *
+     * @param move  Der Footprint-Index des Zuges.
+     * @param ply   Der Abstand zur Wurzel.
+     * @param depth Die verbleibende Tiefe; tiefe Schnitte zählen quadratisch mehr.
+     */
+    public void cutoff(int move, int ply, int depth) {
+        int[] plyKillers = killers[Math.min(ply, killers.length - 1)];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        history[move] += depth * depth;
+        if (history[move] > HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Statische Bewertung einer Platzierung: große Gebäude zuerst, dann solche, die an eigene Gebäude,
+     * eigenes Gebiet oder den Brettrand anschließen und damit Gebiet abschließen können.
+     */
+    static int territoryScore(int move, long ownLow, long ownHigh) {
+        int contacts = Long.bitCount(Footprints.ringLow(move) & ownLow) + Long.bitCount(Footprints.ringHigh(move) & ownHigh);
+        return SIZE_WEIGHT * Footprints.building(move).score() + CONTACT_WEIGHT * contacts + Footprints.edges(move);
+    }
+
+    private void clearKillers() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, -1);
+        }
+    }
+}
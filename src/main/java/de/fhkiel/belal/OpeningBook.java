@@ -0,0 +1,181 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Eröffnungsbuch als Hashtabelle in einer Binärdatei. Die Datei wird nur gemappt, nicht eingelesen;
+ * eine Abfrage liest direkt die Slots der Tabelle.
+ * <p>
+ * Aufbau (Big Endian): Magic, Version, Fingerprint der Zobrist-Schlüssel und Footprints, Anzahl der Slots
+ * (Zweierpotenz), Anzahl der Einträge. Danach folgen die Slots mit je 16 Byte: kanonischer Zobrist-Hash der
+ * Stellung, Footprint-Index des Zuges in der kanonischen Lage plus 1, Suchtiefe und Score. Ein Hash von 0
+ * markiert einen leeren Slot, Kollisionen werden linear aufgelöst.
+ */
+public final class OpeningBook {
+    /** Standarddatei, falls die System-Property belal.book nicht gesetzt ist. */
+    public static final String DEFAULT_FILE = "cathedral.book";
+    /** Ein Buch ohne Einträge, wenn keine Datei vorhanden ist. */
+    public static final OpeningBook EMPTY = new OpeningBook(null, 0, 0);
+
+    private static final int MAGIC = 0x43424F4B; // "CBOK"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+    private static final int SLOT_BYTES = 16;
+
+    private final ByteBuffer slots;
+    private final int mask;
+    private final int size;
+
+    private OpeningBook(ByteBuffer slots, int slotCount, int size) {
+        this.slots = slots;
+        this.mask = slotCount - 1;
+        this.size = size;
+    }
+
+    /**
+     * Mappt ein Eröffnungsbuch.
+     *
+     * @throws IOException Wenn die Datei nicht lesbar ist oder nicht zu dieser Programmversion passt.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            if (buffer.getInt(4) != VERSION || buffer.getLong(8) != fingerprint()) {
+                throw new IOException("Opening book was built for a different version: " + path);
+            }
+            int slotCount = buffer.getInt(16);
+            int size = buffer.getInt(20);
+            if (Integer.bitCount(slotCount) != 1 || buffer.capacity() != HEADER_BYTES + (long) slotCount * SLOT_BYTES) {
+                throw new IOException("Corrupt opening book: " + path);
+            }
+            ByteBuffer slots = buffer.slice(HEADER_BYTES, slotCount * SLOT_BYTES);
+            return new OpeningBook(slots, slotCount, size);
+        }
+    }
+
+    /**
+     * Lädt das Buch aus der System-Property belal.book oder aus {@link #DEFAULT_FILE}. Fehlt die Datei oder
+     * ist sie unbrauchbar, wird ohne Buch gespielt.
+     */
+    public static OpeningBook loadDefault() {
+        Path path = Path.of(System.getProperty("belal.book", DEFAULT_FILE));
+        if (!Files.isRegularFile(path)) {
+            return EMPTY;
+        }
+        try {
+            return open(path);
+        } catch (IOException e) {
+            System.err.println("[book] " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    /**
+     * @return Der Buchzug für die Stellung oder leer, wenn sie nicht im Buch steht.
+     */
+    public Optional<Placement> lookup(Game game) {
+        if (size == 0) {
+            return Optional.empty();
+        }
+        ZobristHash zobrist = new ZobristHash(0);
+        zobrist.reset(game);
+        // Das Buch speichert nur kanonische Stellungen, der Zug wird in die Lage der Stellung zurückgedreht
+        int transform = Symmetry.inverse(zobrist.transform());
+        return lookup(zobrist.canonical())
+                .map(move -> Symmetry.move(transform, Footprints.indexOf(move)))
+                .filter(move -> move >= 0)
+                .map(Footprints::placement);
+    }
+
+    /**
+     * @param key Der kanonische Zobrist-Hash der Stellung.
+     * @return Der Buchzug in der Lage der kanonischen Stellung oder leer.
+     */
+    public Optional<Placement> lookup(long key) {
+        if (size == 0 || key == 0) {
+            return Optional.empty();
+        }
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            long stored = slots.getLong(slot * SLOT_BYTES);
+            if (stored == 0) {
+                return Optional.empty();
+            }
+            if (stored == key) {
+                int move = (slots.getInt(slot * SLOT_BYTES + 8) >>> 16) - 1;
+                return move < 0 || move >= Footprints.count() ? Optional.empty() : Optional.of(Footprints.placement(move));
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schreibt ein Buch. Die Tabelle ist höchstens halb gefüllt, damit Abfragen kurz bleiben.
+     *
+     * @param entries Pro kanonischem Stellungshash der Eintrag.
+     */
+    public static void write(Path path, Map<Long, Entry> entries) throws IOException {
+        int slotCount = Integer.highestOneBit(Math.max(1, entries.size() * 2 - 1)) << 1;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + slotCount * SLOT_BYTES);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, fingerprint());
+        buffer.putInt(16, slotCount);
+        buffer.putInt(20, entries.size());
+        int mask = slotCount - 1;
+        for (Map.Entry<Long, Entry> e : entries.entrySet()) {
+            long key = e.getKey();
+            if (key == 0) {
+                continue;
+            }
+            int slot = (int) key & mask;
+            while (buffer.getLong(HEADER_BYTES + slot * SLOT_BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            Entry entry = e.getValue();
+            buffer.putLong(offset, key);
+            buffer.putInt(offset + 8, (entry.move() + 1) << 16 | Math.min(entry.depth(), 0xFFFF));
+            buffer.putInt(offset + 12, entry.score());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Erkennt Bücher, die mit anderen Zobrist-Schlüsseln oder Footprints gebaut wurden.
+     */
+    private static long fingerprint() {
+        return ZobristHash.hash(new Game()) * 31 + Footprints.count();
+    }
+
+    /**
+     * Ein Buchzug.
+     *
+     * @param move  Der Footprint-Index des Zuges in der Lage der kanonischen Stellung.
+     * @param depth Die Tiefe, mit der der Zug gesucht wurde.
+     * @param score Der Score des Zuges aus Sicht des Spielers am Zug.
+     */
+    public record Entry(int move, int depth, int score) {
+    }
+}
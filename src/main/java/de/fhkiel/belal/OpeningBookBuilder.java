@@ -0,0 +1,94 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Baut ein {@link OpeningBook} offline durch Selbstspiel. In jeder Partie wird für jede Stellung der ersten
+ * Züge mit langer Bedenkzeit gesucht und der beste Zug ins Buch übernommen. Damit das Buch mehr als eine
+ * Linie abdeckt, wird mit einer festen Wahrscheinlichkeit ein zufälliger legaler Zug statt des Buchzuges
+ * gespielt.
+ * <p>
+ * Aufruf: {@code OpeningBookBuilder [datei] [partien] [züge] [sekunden pro stellung] [seed]}
+ */
+public final class OpeningBookBuilder {
+    private static final double RANDOM_MOVE_RATE = 0.3;
+
+    private OpeningBookBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path out = Path.of(args.length > 0 ? args[0] : OpeningBook.DEFAULT_FILE);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+        Map<Long, OpeningBook.Entry> entries = build(games, plies, seconds, seed);
+        OpeningBook.write(out, entries);
+        System.out.println("[book] " + entries.size() + " positions written to " + out);
+    }
+
+    /**
+     * @param games   Die Anzahl der Selbstspiel-Partien.
+     * @param plies   Die Anzahl der Züge ab Spielbeginn, die ins Buch kommen.
+     * @param seconds Die Bedenkzeit pro Stellung in Sekunden.
+     * @param seed    Der Seed für die Auswahl zufälliger Züge.
+     * @return Die Buchzüge pro kanonischem Stellungshash.
+     */
+    public static Map<Long, OpeningBook.Entry> build(int games, int plies, int seconds, long seed) {
+        Random random = new Random(seed);
+        MinimaxAgent agent = new MinimaxAgent();
+        agent.setVerbosity(SearchVerbosity.OFF);
+        agent.setOpeningBook(OpeningBook.EMPTY);
+        Map<Long, OpeningBook.Entry> entries = new HashMap<>();
+        ZobristHash zobrist = new ZobristHash(0);
+
+        for (int g = 0; g < games; g++) {
+            Game game = new Game();
+            for (int ply = 0; ply < plies && !game.isFinished(); ply++) {
+                zobrist.reset(game);
+                long key = zobrist.canonical();
+                OpeningBook.Entry entry = entries.get(key);
+                Placement move = null;
+                if (entry == null) {
+                    Optional<Placement> best = agent.calculateTurn(game.copy(), seconds, 0);
+                    if (best.isEmpty()) {
+                        break;
+                    }
+                    SearchRecord record = agent.getLastSearchRecord();
+                    move = best.get();
+                    // Gespeichert wird der Zug in der Lage der kanonischen Stellung
+                    int canonicalMove = Symmetry.move(zobrist.transform(), Footprints.indexOf(move));
+                    if (canonicalMove >= 0) {
+                        entries.put(key, new OpeningBook.Entry(canonicalMove,
+                                record == null ? 0 : record.depth(), record == null ? 0 : record.score()));
+                    }
+                } else {
+                    int bookMove = Symmetry.move(Symmetry.inverse(zobrist.transform()), entry.move());
+                    move = bookMove >= 0 ? Footprints.placement(bookMove) : null;
+                }
+
+                // Nach dem Kathedralenzug gelegentlich abweichen, damit auch Nebenlinien ins Buch kommen
+                if (ply > 0 && random.nextDouble() < RANDOM_MOVE_RATE) {
+                    Placement randomMove = PositionSampler.randomPlacement(game, random);
+                    if (randomMove != null) {
+                        move = randomMove;
+                    }
+                }
+                if (move == null || !game.takeTurn(move)) {
+                    break;
+                }
+            }
+            System.out.println("[book] game " + (g + 1) + "/" + games + ": " + entries.size() + " positions");
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,74 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Erzeugt reproduzierbare Teststellungen durch zufällige legale Züge ab Spielbeginn.
+ */
+public final class PositionSampler {
+
+    private PositionSampler() {
+    }
+
+    /**
+     * @param count Die Anzahl der Stellungen.
+     * @param plies Die Anzahl der zufälligen Züge pro Stellung.
+     * @param seed  Der Seed für den Zufallsgenerator.
+     * @return Die Stellungen, jeweils mit dem Spieler am Zug, der nicht fertig ist.
+     */
+    public static List<Game> randomPositions(int count, int plies, long seed) {
+        Random random = new Random(seed);
+        List<Game> positions = new ArrayList<>(count);
+        while (positions.size() < count) {
+            Game game = new Game();
+            for (int ply = 0; ply < plies && !game.isFinished(); ply++) {
+                Placement placement = randomPlacement(game, random);
+                if (placement == null) {
+                    break;
+                }
+                game.takeTurn(placement);
+            }
+            if (!game.isFinished()) {
+                positions.add(game);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Wählt einen zufälligen legalen Zug des Spielers am Zug.
+     *
+     * @return Der Zug oder null, wenn der Spieler nicht setzen kann.
+     */
+    public static Placement randomPlacement(Game game, Random random) {
+        BitBoard bitBoard = BitBoard.of(game.getBoard());
+        List<Placement> candidates = new ArrayList<>();
+        boolean[] seen = new boolean[Building.values().length];
+        for (Building building : game.getPlacableBuildings()) {
+            if (seen[building.ordinal()]) {
+                continue;
+            }
+            seen[building.ordinal()] = true;
+            for (int footprint : Footprints.of(building)) {
+                if (bitBoard.canPlace(footprint)) {
+                    candidates.add(Footprints.placement(footprint));
+                }
+            }
+        }
+        // Das Spiel hat das letzte Wort über die Legalität, deshalb bis zu einem akzeptierten Zug ziehen
+        while (!candidates.isEmpty()) {
+            Placement placement = candidates.remove(random.nextInt(candidates.size()));
+            if (game.takeTurn(placement)) {
+                game.undoLastTurn();
+                return placement;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,176 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Direction;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sicht auf eine gespeicherte Partie in einem Buffer von {@link GameRecordReader}. Die Felder werden erst beim
+ * Zugriff gelesen, die Partie wird nur auf Anfrage mit {@link #replay()} nachgespielt.
+ * <p>
+ * Aufbau einer Partie (Big Endian): Länge des Eintrags in Byte, Startzeit, Score von Schwarz und Weiß,
+ * Bedenkzeit von Schwarz und Weiß in Millisekunden, Anzahl der Züge, die Namen der Agenten für Schwarz und Weiß
+ * (je ein Längenbyte und UTF-8). Danach folgen pro Zug zwei Byte Platzierung und zwei Byte Bedenkzeit in
+ * Millisekunden. Die Platzierung ist Gebäude, Richtung, x und y in 6, 2, 4 und 4 Bit, 0xFFFF steht für einen
+ * ausgelassenen Zug.
+ */
+public final class RecordedGame {
+    static final int MAGIC = 0x43475243; // "CGRC"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 0xFFFF;
+    static final int MAX_MOVES = 4096;
+    static final int MAX_NAME_BYTES = 0xFF;
+    static final int PASS = 0xFFFF;
+
+    static final int LENGTH = 0;
+    static final int START_MILLIS = 4;
+    static final int BLACK_SCORE = 12;
+    static final int WHITE_SCORE = 14;
+    static final int BLACK_MILLIS = 16;
+    static final int WHITE_MILLIS = 20;
+    static final int MOVE_COUNT = 24;
+    static final int NAMES = 26;
+
+    private static final Building[] BUILDINGS = Building.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    RecordedGame(ByteBuffer buffer, int offset) {
+        reset(buffer, offset);
+    }
+
+    /**
+     * Richtet die Sicht auf einen anderen Eintrag aus, damit beim Durchlaufen keine Objekte entstehen.
+     */
+    void reset(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * @return Die Länge des Eintrags in Byte.
+     */
+    public int length() {
+        return buffer.getInt(offset + LENGTH);
+    }
+
+    /**
+     * @return Der Beginn der Partie in Millisekunden seit 1970.
+     */
+    public long startMillis() {
+        return buffer.getLong(offset + START_MILLIS);
+    }
+
+    /**
+     * @return Der Endstand wie bei {@link Game#score()}: die Fläche der nicht gesetzten Gebäude, weniger ist besser.
+     */
+    public int score(Color color) {
+        return buffer.getShort(offset + (color == Color.White ? WHITE_SCORE : BLACK_SCORE));
+    }
+
+    /**
+     * @return Die gesamte Bedenkzeit der Farbe in Millisekunden.
+     */
+    public int millis(Color color) {
+        return buffer.getInt(offset + (color == Color.White ? WHITE_MILLIS : BLACK_MILLIS));
+    }
+
+    public String agent(Color color) {
+        int position = offset + NAMES;
+        if (color == Color.White) {
+            position += 1 + (buffer.get(position) & 0xFF);
+        }
+        byte[] name = new byte[buffer.get(position) & 0xFF];
+        buffer.get(position + 1, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Die Anzahl der Züge einschließlich ausgelassener Züge.
+     */
+    public int moveCount() {
+        return buffer.getShort(offset + MOVE_COUNT) & 0xFFFF;
+    }
+
+    /**
+     * @return Der i-te Zug oder null, wenn der Spieler ausgelassen hat.
+     */
+    public Placement move(int index) {
+        return decode(buffer.getShort(movesOffset() + index * 4) & 0xFFFF);
+    }
+
+    /**
+     * @return Die Bedenkzeit für den i-ten Zug in Millisekunden, höchstens 65535.
+     */
+    public int moveMillis(int index) {
+        return buffer.getShort(movesOffset() + index * 4 + 2) & 0xFFFF;
+    }
+
+    /**
+     * Spielt die ganze Partie nach.
+     */
+    public Game replay() {
+        return replay(moveCount());
+    }
+
+    /**
+     * Spielt die ersten Züge der Partie auf einem neuen Spiel nach.
+     *
+     * @param plies Die Anzahl der nachzuspielenden Züge.
+     * @throws IllegalStateException Wenn das Spiel einen gespeicherten Zug ablehnt.
+     */
+    public Game replay(int plies) {
+        Game game = new Game();
+        for (int i = 0; i < Math.min(plies, moveCount()); i++) {
+            play(game, i);
+        }
+        return game;
+    }
+
+    /**
+     * Spielt einen gespeicherten Zug auf dem Spiel nach, etwa um die Stellungen einer Partie nacheinander
+     * zu durchlaufen, ohne sie jedes Mal neu aufzubauen.
+     *
+     * @param game  Das Spiel nach den ersten index Zügen.
+     * @param index Der Index des Zuges.
+     * @throws IllegalStateException Wenn das Spiel den Zug ablehnt.
+     */
+    void play(Game game, int index) {
+        Placement placement = move(index);
+        if (placement == null) {
+            game.forfeitTurn();
+        } else if (!game.takeTurn(placement)) {
+            throw new IllegalStateException("Recorded move " + index + " is not legal: " + placement);
+        }
+    }
+
+    private int movesOffset() {
+        int position = offset + NAMES;
+        position += 1 + (buffer.get(position) & 0xFF);
+        position += 1 + (buffer.get(position) & 0xFF);
+        return position;
+    }
+
+    static int encode(Placement placement) {
+        if (placement == null) {
+            return PASS;
+        }
+        return placement.building().ordinal() << 10 | placement.direction().ordinal() << 8
+                | placement.position().x() << 4 | placement.position().y();
+    }
+
+    static Placement decode(int code) {
+        if (code == PASS) {
+            return null;
+        }
+        return new Placement(code >>> 4 & 0xF, code & 0xF, DIRECTIONS[code >>> 8 & 0x3], BUILDINGS[code >>> 10]);
+    }
+}
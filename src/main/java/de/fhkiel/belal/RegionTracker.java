@@ -0,0 +1,346 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.Arrays;
+
+/**
+ * Inkrementelle Analyse der leeren Regionen: zusammenhängende freie Zellen, ihre Nachbarfarben und welche
+ * Gebäude noch hineinpassen. Zusammenhang gilt nur über Kanten, denn diagonal berührende Gebäude bilden
+ * bereits eine geschlossene Mauer.
+ * <p>
+ * Ein Zug kann Regionen nur teilen oder, wenn Gebäude entfernt werden, verbinden. Neu bestimmt werden daher
+ * nur die Regionen, die eine geänderte Zelle enthalten oder an sie grenzen, per Flutfüllung auf den
+ * Bitmasken; alle anderen werden samt ihrer passenden Gebäude übernommen. Jede Ebene hat ihre eigene
+ * Regionsliste, undo setzt also nur die Ebene zurück.
+ * <p>
+ * Daraus liest {@link Evaluation} reservierte Fläche (nur noch ein Spieler kann dort setzen) und bedrohte
+ * Gebäude (sie grenzen an Fläche, die nur noch der Gegner nutzen kann), ohne das Spiel zu kopieren.
+ */
+public class RegionTracker {
+    private static final int SIZE = 10;
+    private static final int CELLS = SIZE * SIZE;
+    /** Mehr Regionen passen nicht auf das Brett, das Maximum ist ein Schachbrettmuster. */
+    private static final int MAX_REGIONS = CELLS / 2;
+    private static final long HIGH_MASK = (1L << (CELLS - 64)) - 1;
+    private static final Building[] BUILDINGS = Building.values();
+    // Alle Zellen außer der ersten bzw. letzten Spalte, Aufteilung wie bei BitBoard
+    private static final long NOT_FIRST_LOW;
+    private static final long NOT_FIRST_HIGH;
+    private static final long NOT_LAST_LOW;
+    private static final long NOT_LAST_HIGH;
+
+    static {
+        long notFirstLow = 0;
+        long notFirstHigh = 0;
+        long notLastLow = 0;
+        long notLastHigh = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int x = cell % SIZE;
+            if (x != 0) {
+                if (cell < 64) {
+                    notFirstLow |= 1L << cell;
+                } else {
+                    notFirstHigh |= 1L << (cell - 64);
+                }
+            }
+            if (x != SIZE - 1) {
+                if (cell < 64) {
+                    notLastLow |= 1L << cell;
+                } else {
+                    notLastHigh |= 1L << (cell - 64);
+                }
+            }
+        }
+        NOT_FIRST_LOW = notFirstLow;
+        NOT_FIRST_HIGH = notFirstHigh;
+        NOT_LAST_LOW = notLastLow;
+        NOT_LAST_HIGH = notLastHigh;
+    }
+
+    // Pro Ebene: die Regionen und pro Region die Gebäude (Bit pro ordinal), deren Form hineinpasst
+    private final long[][] regionLow;
+    private final long[][] regionHigh;
+    private final int[][] regionFits;
+    private final int[] regionCount;
+    // Pro Ebene: nicht gesetzte Gebäude pro ordinal und als Bitmaske pro Farbe (Index 0 Schwarz, 1 Weiß)
+    private final int[][] unplaced;
+    private final int[][] available;
+    private final long[] emptyLow;
+    private final long[] emptyHigh;
+    private int ply;
+
+    /**
+     * @param maxPly Die maximale Anzahl gleichzeitig angewendeter Züge.
+     */
+    public RegionTracker(int maxPly) {
+        regionLow = new long[maxPly + 1][MAX_REGIONS];
+        regionHigh = new long[maxPly + 1][MAX_REGIONS];
+        regionFits = new int[maxPly + 1][MAX_REGIONS];
+        regionCount = new int[maxPly + 1];
+        unplaced = new int[maxPly + 1][BUILDINGS.length];
+        available = new int[maxPly + 1][2];
+        emptyLow = new long[maxPly + 1];
+        emptyHigh = new long[maxPly + 1];
+    }
+
+    /**
+     * Bestimmt alle Regionen neu.
+     *
+     * @param game  Das Spiel.
+     * @param areas Die Flächen derselben Stellung.
+     */
+    public void reset(Game game, AreaTracker areas) {
+        ply = 0;
+        countUnplaced(game, 0);
+        emptyLow[0] = areas.low(Color.None);
+        emptyHigh[0] = areas.high(Color.None);
+        regionCount[0] = 0;
+        fill(0, emptyLow[0], emptyHigh[0]);
+    }
+
+    /**
+     * Übernimmt einen erfolgreich ausgeführten Zug. Der AreaTracker muss den Zug bereits angewendet haben.
+     *
+     * @param game      Das Spiel nach dem Zug.
+     * @param areas     Die Flächen nach dem Zug.
+     * @param placement Der ausgeführte Zug.
+     */
+    public void apply(Game game, AreaTracker areas, Placement placement) {
+        int parent = ply++;
+        long low = areas.low(Color.None);
+        long high = areas.high(Color.None);
+        emptyLow[ply] = low;
+        emptyHigh[ply] = high;
+        if (captured(areas)) {
+            // Entfernte Gebäude gehen zurück an ihren Besitzer und passen evtl. wieder in übernommene Regionen
+            countUnplaced(game, ply);
+            regionCount[ply] = 0;
+            fill(ply, low, high);
+            return;
+        }
+        System.arraycopy(unplaced[parent], 0, unplaced[ply], 0, BUILDINGS.length);
+        available[ply][0] = available[parent][0];
+        available[ply][1] = available[parent][1];
+        if (placement != null && --unplaced[ply][placement.building().ordinal()] == 0) {
+            updateAvailable(ply, placement.building());
+        }
+
+        long changedLow = low ^ emptyLow[parent];
+        long changedHigh = high ^ emptyHigh[parent];
+        long touchLow = dilateLow(changedLow, changedHigh);
+        long touchHigh = dilateHigh(changedLow, changedHigh);
+
+        // Unberührte Regionen übernehmen, die übrigen samt geänderter Zellen neu füllen
+        int count = 0;
+        long poolLow = changedLow;
+        long poolHigh = changedHigh;
+        for (int r = 0; r < regionCount[parent]; r++) {
+            long rl = regionLow[parent][r];
+            long rh = regionHigh[parent][r];
+            if ((rl & touchLow) == 0 && (rh & touchHigh) == 0) {
+                regionLow[ply][count] = rl;
+                regionHigh[ply][count] = rh;
+                regionFits[ply][count] = regionFits[parent][r];
+                count++;
+            } else {
+                poolLow |= rl;
+                poolHigh |= rh;
+            }
+        }
+        regionCount[ply] = count;
+        fill(ply, poolLow & low, poolHigh & high);
+    }
+
+    /**
+     * Nimmt den zuletzt angewendeten Zug zurück.
+     */
+    public void undo() {
+        ply--;
+    }
+
+    public int regionCount() {
+        return regionCount[ply];
+    }
+
+    /**
+     * @return Die Zellen 0 bis 63 der Region als Bitmaske.
+     */
+    public long regionLow(int region) {
+        return regionLow[ply][region];
+    }
+
+    /**
+     * @return Die Zellen 64 bis 99 der Region als Bitmaske.
+     */
+    public long regionHigh(int region) {
+        return regionHigh[ply][region];
+    }
+
+    public int regionSize(int region) {
+        return Long.bitCount(regionLow[ply][region]) + Long.bitCount(regionHigh[ply][region]);
+    }
+
+    /**
+     * @return true, wenn noch ein nicht gesetztes Gebäude des Spielers in die Region passt.
+     */
+    public boolean fits(int region, Color player) {
+        return (regionFits[ply][region] & available[ply][player == Color.White ? 1 : 0]) != 0;
+    }
+
+    /**
+     * @return true, wenn eine Zelle der Farbe über eine Kante an die Region grenzt.
+     */
+    public boolean borders(int region, Color color, AreaTracker areas) {
+        long rl = regionLow[ply][region];
+        long rh = regionHigh[ply][region];
+        return (dilateLow(rl, rh) & areas.low(color)) != 0 || (dilateHigh(rl, rh) & areas.high(color)) != 0;
+    }
+
+    /**
+     * @return Die Anzahl freier Zellen in Regionen, in die nur noch der Spieler, nicht aber der Gegner ein
+     * Gebäude setzen kann.
+     */
+    public int reservedArea(Color player) {
+        Color opponent = player == Color.Black ? Color.White : Color.Black;
+        int area = 0;
+        for (int r = 0; r < regionCount[ply]; r++) {
+            if (fits(r, player) && !fits(r, opponent)) {
+                area += regionSize(r);
+            }
+        }
+        return area;
+    }
+
+    /**
+     * @return Die Anzahl der Gebäudezellen des Spielers, die an eine Region grenzen, in die nur noch der
+     * Gegner setzen kann. Dort kann der Gegner ungestört weiterbauen und das Gebäude einschließen.
+     */
+    public int threatenedCells(Color player, AreaTracker areas) {
+        Color opponent = player == Color.Black ? Color.White : Color.Black;
+        long low = 0;
+        long high = 0;
+        for (int r = 0; r < regionCount[ply]; r++) {
+            if (fits(r, opponent) && !fits(r, player)) {
+                long rl = regionLow[ply][r];
+                long rh = regionHigh[ply][r];
+                low |= dilateLow(rl, rh);
+                high |= dilateHigh(rl, rh);
+            }
+        }
+        return Long.bitCount(low & areas.low(player)) + Long.bitCount(high & areas.high(player));
+    }
+
+    /**
+     * @return true, wenn der zuletzt angewendete Zug ein schwarzes oder weißes Gebäude entfernt hat.
+     */
+    private static boolean captured(AreaTracker areas) {
+        for (int i = 0; i < areas.lastChangeCount(); i++) {
+            Color from = areas.lastChangedFrom(i);
+            if (from == Color.Black || from == Color.White) {
+                int cell = areas.lastChangedCell(i);
+                if (areas.cell(cell % SIZE, cell / SIZE) != from) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void countUnplaced(Game game, int level) {
+        Arrays.fill(unplaced[level], 0);
+        for (Building building : game.getBoard().getAllUnplacedBuildings()) {
+            unplaced[level][building.ordinal()]++;
+        }
+        available[level][0] = 0;
+        available[level][1] = 0;
+        for (Building building : BUILDINGS) {
+            updateAvailable(level, building);
+        }
+    }
+
+    private void updateAvailable(int level, Building building) {
+        int index = building.getColor() == Color.White ? 1 : building.getColor() == Color.Black ? 0 : -1;
+        if (index < 0) {
+            return;
+        }
+        int bit = 1 << building.ordinal();
+        if (unplaced[level][building.ordinal()] > 0) {
+            available[level][index] |= bit;
+        } else {
+            available[level][index] &= ~bit;
+        }
+    }
+
+    /**
+     * Zerlegt die Zellen per Flutfüllung in Regionen und hängt sie an die Liste der Ebene an.
+     */
+    private void fill(int level, long poolLow, long poolHigh) {
+        int candidates = available[level][0] | available[level][1];
+        while ((poolLow | poolHigh) != 0) {
+            long low = poolLow != 0 ? Long.lowestOneBit(poolLow) : 0;
+            long high = poolLow != 0 ? 0 : Long.lowestOneBit(poolHigh);
+            while (true) {
+                long nextLow = dilateLow(low, high) & poolLow;
+                long nextHigh = dilateHigh(low, high) & poolHigh;
+                if (nextLow == low && nextHigh == high) {
+                    break;
+                }
+                low = nextLow;
+                high = nextHigh;
+            }
+            poolLow &= ~low;
+            poolHigh &= ~high;
+            int r = regionCount[level]++;
+            regionLow[level][r] = low;
+            regionHigh[level][r] = high;
+            regionFits[level][r] = fittingBuildings(low, high, candidates);
+        }
+    }
+
+    /**
+     * @return Die Gebäude aus candidates, deren Form in eine Platzierung innerhalb der Zellen passt.
+     */
+    private static int fittingBuildings(long low, long high, int candidates) {
+        int size = Long.bitCount(low) + Long.bitCount(high);
+        int result = 0;
+        for (Building building : BUILDINGS) {
+            int bit = 1 << building.ordinal();
+            if ((candidates & bit) == 0 || building.score() > size) {
+                continue;
+            }
+            for (int footprint : Footprints.of(building)) {
+                if ((Footprints.low(footprint) & ~low) == 0 && (Footprints.high(footprint) & ~high) == 0) {
+                    result |= bit;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Die Zellen 0 bis 63 der Maske samt ihrer Nachbarn über Kanten.
+     */
+    private static long dilateLow(long low, long high) {
+        long east = (low << 1) & NOT_FIRST_LOW;
+        long west = ((low >>> 1) | (high << 63)) & NOT_LAST_LOW;
+        long south = low << SIZE;
+        long north = (low >>> SIZE) | (high << (64 - SIZE));
+        return low | east | west | south | north;
+    }
+
+    /**
+     * @return Die Zellen 64 bis 99 der Maske samt ihrer Nachbarn über Kanten.
+     */
+    private static long dilateHigh(long low, long high) {
+        long east = ((high << 1) | (low >>> 63)) & NOT_FIRST_HIGH;
+        long west = (high >>> 1) & NOT_LAST_HIGH;
+        long south = (high << SIZE) | (low >>> (64 - SIZE));
+        long north = high >>> SIZE;
+        return (high | east | west | south | north) & HIGH_MASK;
+    }
+}
@@ -0,0 +1,41 @@
+package de.fhkiel.belal;
+
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Einzeln schaltbare Verfahren der selektiven Suche des MinimaxAgent, damit erreichte Tiefe und
+ * Spielstärke für jedes Verfahren getrennt gemessen werden können.
+ */
+public enum SearchFeature {
+    /** Principal Variation Search: nach dem ersten Zug Nullfenster-Suchen, nur bei Verbesserung neu suchen. */
+    PVS,
+    /** Aspirationsfenster um den Score der vorherigen Tiefe, bei Fail-Low/High wird das Fenster erweitert. */
+    ASPIRATION,
+    /** Late Move Reductions: späte, nicht gebietswirksame Züge werden flacher durchsucht. */
+    LMR,
+    /** Strahlbreite: pro Knoten nur die am besten sortierten Platzierungen kleiner Gebäude. */
+    BEAM;
+
+    /**
+     * Liest die Verfahren aus der System-Property belal.search.features als kommagetrennte Liste, z.B.
+     * "pvs,lmr". "none" schaltet alle ab, "all" alle ein. Standard sind PVS und ASPIRATION, die bis auf
+     * Effekte der Transpositionstabelle dasselbe Ergebnis wie die volle Alpha-Beta-Suche liefern.
+     */
+    static EnumSet<SearchFeature> fromSystemProperty() {
+        return parse(System.getProperty("belal.search.features", "pvs,aspiration"));
+    }
+
+    static EnumSet<SearchFeature> parse(String value) {
+        EnumSet<SearchFeature> features = EnumSet.noneOf(SearchFeature.class);
+        for (String name : value.split(",")) {
+            String trimmed = name.trim().toUpperCase(Locale.ROOT);
+            if (trimmed.equals("ALL")) {
+                features.addAll(EnumSet.allOf(SearchFeature.class));
+            } else if (!trimmed.isEmpty() && !trimmed.equals("NONE")) {
+                features.add(valueOf(trimmed));
+            }
+        }
+        return features;
+    }
+}
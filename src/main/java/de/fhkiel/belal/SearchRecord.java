@@ -0,0 +1,56 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Ergebnis und Kennzahlen einer Suche für einen Zug.
+ *
+ * @param turnNumber  Die Nummer des letzten gespielten Zuges vor der Suche.
+ * @param player      Der Spieler am Zug.
+ * @param bestMove    Der gewählte Zug.
+ * @param score       Der Score des gewählten Zuges.
+ * @param depth       Die letzte vollständig abgeschlossene Tiefe.
+ * @param millis      Die Dauer der Suche in Millisekunden.
+ * @param depthMillis Die Zeit seit Suchbeginn beim Abschluss jeder Tiefe, Index 0 ist Tiefe 1.
+ * @param pv          Die Hauptvariante der letzten abgeschlossenen Tiefe.
+ * @param statistics  Die Zähler aller Such-Threads zusammen.
+ */
+public record SearchRecord(int turnNumber, Color player, Placement bestMove, int score, int depth, long millis,
+                           List<Long> depthMillis, List<Placement> pv, SearchStatistics statistics) {
+
+    public static final String CSV_HEADER =
+            "turn,player,depth,score,millis,nodes,leaves,cutoffs,tt_probes,tt_hits,tt_cutoffs,branching,nps,reductions,researches,beam_skips,"
+                    + "best_move";
+
+    public long nodesPerSecond() {
+        return millis == 0 ? statistics.nodes() * 1000 : statistics.nodes() * 1000 / millis;
+    }
+
+    /**
+     * @return Eine kompakte Zeile für die Konsole.
+     */
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "[search] turn %d %s: depth %d, score %d, %d ms, %d nodes (%d nps), %d leaves, %d cutoffs, "
+                        + "tt %d/%d, branching %.2f, %d reductions, %d re-searches, %d beam skips, pv %s",
+                turnNumber, player, depth, score, millis, statistics.nodes(), nodesPerSecond(), statistics.leaves(),
+                statistics.cutoffs(), statistics.ttHits(), statistics.ttProbes(), statistics.branchingFactor(),
+                statistics.reductions(), statistics.researches(), statistics.beamSkips(),
+                pv.stream().map(String::valueOf).collect(Collectors.joining(" ")));
+    }
+
+    /**
+     * @return Eine Zeile passend zu {@link #CSV_HEADER}.
+     */
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.3f,%d,%d,%d,%d,\"%s\"",
+                turnNumber, player, depth, score, millis, statistics.nodes(), statistics.leaves(), statistics.cutoffs(),
+                statistics.ttProbes(), statistics.ttHits(), statistics.ttCutoffs(), statistics.branchingFactor(),
+                nodesPerSecond(), statistics.reductions(), statistics.researches(), statistics.beamSkips(), bestMove);
+    }
+}
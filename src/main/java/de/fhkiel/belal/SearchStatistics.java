@@ -0,0 +1,100 @@
+package de.fhkiel.belal;
+
+/**
+ * Zähler einer Suche. Jeder Such-Thread besitzt eigene Zähler, die ohne Synchronisation erhöht
+ * und erst nach der Suche zusammengezählt werden.
+ */
+public final class SearchStatistics {
+    /** Alle besuchten Knoten unterhalb der Wurzel. */
+    long nodes;
+    /** Knoten, die statisch bewertet wurden. */
+    long leaves;
+    /** Knoten, deren Kinder durchsucht wurden. */
+    long expanded;
+    /** Durchsuchte Kinder aller expandierten Knoten. */
+    long moves;
+    /** Beta-Schnitte bei Alpha-Beta. */
+    long cutoffs;
+    long ttProbes;
+    /** Einträge der Transpositionstabelle, die zur Stellung gehörten. */
+    long ttHits;
+    /** Treffer, deren Score direkt verwendet werden konnte. */
+    long ttCutoffs;
+    /** Mit Late Move Reduction verkürzt durchsuchte Züge. */
+    long reductions;
+    /** Erneute Suchen nach Nullfenster, Reduktion oder verfehltem Aspirationsfenster. */
+    long researches;
+    /** Wegen der Strahlbreite übersprungene Züge. */
+    long beamSkips;
+
+    void reset() {
+        nodes = 0;
+        leaves = 0;
+        expanded = 0;
+        moves = 0;
+        cutoffs = 0;
+        ttProbes = 0;
+        ttHits = 0;
+        ttCutoffs = 0;
+        reductions = 0;
+        researches = 0;
+        beamSkips = 0;
+    }
+
+    void add(SearchStatistics other) {
+        nodes += other.nodes;
+        leaves += other.leaves;
+        expanded += other.expanded;
+        moves += other.moves;
+        cutoffs += other.cutoffs;
+        ttProbes += other.ttProbes;
+        ttHits += other.ttHits;
+        ttCutoffs += other.ttCutoffs;
+        reductions += other.reductions;
+        researches += other.researches;
+        beamSkips += other.beamSkips;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    public long leaves() {
+        return leaves;
+    }
+
+    public long cutoffs() {
+        return cutoffs;
+    }
+
+    public long ttProbes() {
+        return ttProbes;
+    }
+
+    public long ttHits() {
+        return ttHits;
+    }
+
+    public long ttCutoffs() {
+        return ttCutoffs;
+    }
+
+    public long reductions() {
+        return reductions;
+    }
+
+    public long researches() {
+        return researches;
+    }
+
+    public long beamSkips() {
+        return beamSkips;
+    }
+
+    /**
+     * @return Die mittlere Anzahl tatsächlich durchsuchter Kinder pro expandiertem Knoten.
+     */
+    public double branchingFactor() {
+        return expanded == 0 ? 0 : (double) moves / expanded;
+    }
+}
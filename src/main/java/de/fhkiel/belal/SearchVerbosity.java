@@ -0,0 +1,24 @@
+package de.fhkiel.belal;
+
+import java.util.Locale;
+
+/**
+ * Wie viel der MinimaxAgent über seine Suche ausgibt. Die Zähler laufen immer mit, die Stufe
+ * bestimmt nur die Konsolenausgabe.
+ */
+public enum SearchVerbosity {
+    /** Keine Ausgabe. */
+    OFF,
+    /** Eine Zusammenfassung pro Zug. */
+    TURN,
+    /** Zusätzlich eine Zeile pro abgeschlossener Tiefe. */
+    DEPTH;
+
+    /**
+     * Liest die Stufe aus der System-Property belal.search.verbosity, Standard ist TURN.
+     */
+    static SearchVerbosity fromSystemProperty() {
+        String value = System.getProperty("belal.search.verbosity");
+        return value == null ? TURN : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,197 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Board;
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Die acht Symmetrien des 10x10-Bretts: Transformation t spiegelt für t >= 4 zuerst an der senkrechten
+ * Mittelachse und dreht danach t % 4 mal um 90 Grad. Drehungen sind immer erlaubt, da jedes Gebäude in allen
+ * Richtungen gesetzt werden kann. Spiegelungen nur, solange alle noch nicht platzierten Gebäude
+ * spiegelsymmetrisch sind, denn ein gespiegeltes asymmetrisches Gebäude gibt es im Spiel nicht.
+ * <p>
+ * Züge werden als Footprint-Index abgebildet. Welche Transformationen für ein Gebäude gültig sind, wird einmalig
+ * aus den Masken in {@link Footprints} abgeleitet.
+ */
+public final class Symmetry {
+    public static final int IDENTITY = 0;
+    public static final int COUNT = 8;
+
+    private static final int SIZE = 10;
+    private static final int CELLS = SIZE * SIZE;
+
+    private static final int[][] CELL_MAP = new int[COUNT][CELLS];
+    private static final int[] INVERSE = new int[COUNT];
+    private static final int[][] MOVE_MAP = new int[COUNT][];
+    // Kleinster Index mit gleichem Gebäude und gleicher Maske, also ein gleichwertiger Zug
+    private static final int[] REPRESENTATIVE;
+    private static final int[] BUILDING_TRANSFORMS = new int[Building.values().length];
+
+    static {
+        for (int t = 0; t < COUNT; t++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                int x = cell % SIZE;
+                int y = cell / SIZE;
+                if (t >= 4) {
+                    x = SIZE - 1 - x;
+                }
+                for (int r = 0; r < t % 4; r++) {
+                    int rotated = SIZE - 1 - y;
+                    y = x;
+                    x = rotated;
+                }
+                CELL_MAP[t][cell] = y * SIZE + x;
+            }
+        }
+        for (int t = 0; t < COUNT; t++) {
+            for (int s = 0; s < COUNT; s++) {
+                boolean inverse = true;
+                for (int cell = 0; cell < CELLS && inverse; cell++) {
+                    inverse = CELL_MAP[s][CELL_MAP[t][cell]] == cell;
+                }
+                if (inverse) {
+                    INVERSE[t] = s;
+                    break;
+                }
+            }
+        }
+
+        int count = Footprints.count();
+        Map<Mask, Integer> byMask = new HashMap<>();
+        REPRESENTATIVE = new int[count];
+        for (int i = 0; i < count; i++) {
+            Integer first = byMask.putIfAbsent(new Mask(Footprints.building(i).ordinal(), Footprints.low(i), Footprints.high(i)), i);
+            REPRESENTATIVE[i] = first == null ? i : first;
+        }
+        Arrays.fill(BUILDING_TRANSFORMS, (1 << COUNT) - 1);
+        for (int t = 0; t < COUNT; t++) {
+            MOVE_MAP[t] = new int[count];
+            for (int i = 0; i < count; i++) {
+                long low = 0;
+                long high = 0;
+                for (int cell = 0; cell < CELLS; cell++) {
+                    if (contains(Footprints.low(i), Footprints.high(i), cell)) {
+                        int mapped = CELL_MAP[t][cell];
+                        if (mapped < 64) {
+                            low |= 1L << mapped;
+                        } else {
+                            high |= 1L << (mapped - 64);
+                        }
+                    }
+                }
+                Integer target = byMask.get(new Mask(Footprints.building(i).ordinal(), low, high));
+                MOVE_MAP[t][i] = t == IDENTITY ? i : target == null ? -1 : target;
+                if (target == null) {
+                    BUILDING_TRANSFORMS[Footprints.building(i).ordinal()] &= ~(1 << t);
+                }
+            }
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    private static boolean contains(long low, long high, int cell) {
+        return cell < 64 ? (low >>> cell & 1L) != 0 : (high >>> (cell - 64) & 1L) != 0;
+    }
+
+    /**
+     * @return Die Zelle (y * 10 + x), auf die die Transformation die Zelle abbildet.
+     */
+    public static int cell(int transform, int cell) {
+        return CELL_MAP[transform][cell];
+    }
+
+    public static int inverse(int transform) {
+        return INVERSE[transform];
+    }
+
+    /**
+     * @return Der Footprint-Index des transformierten Zuges oder -1, wenn das Gebäude für die Transformation
+     * nicht symmetrisch ist.
+     */
+    public static int move(int transform, int move) {
+        return move < 0 ? -1 : MOVE_MAP[transform][move];
+    }
+
+    /**
+     * @return Die Bitmaske der Transformationen, unter denen alle Gebäude mit einem noch nicht platzierten
+     * Exemplar auf sich selbst abgebildet werden.
+     */
+    public static int allowed(int[] unplacedCounts) {
+        int allowed = (1 << COUNT) - 1;
+        for (int b = 0; b < unplacedCounts.length; b++) {
+            if (unplacedCounts[b] > 0) {
+                allowed &= BUILDING_TRANSFORMS[b];
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Wie {@link #allowed(int[])}, die noch nicht platzierten Gebäude werden vom Brett gezählt.
+     */
+    public static int allowed(Board board) {
+        int[] counts = new int[Building.values().length];
+        for (Building building : board.getAllUnplacedBuildings()) {
+            counts[building.ordinal()]++;
+        }
+        return allowed(counts);
+    }
+
+    /**
+     * Prüft, ob ein Zug der Vertreter der Züge mit gleichem Gebäude und gleicher Belegung ist. Solche Züge
+     * entstehen bei symmetrischen Gebäuden aus verschiedenen Richtungen und führen zur selben Stellung.
+     */
+    public static boolean isRepresentative(int move) {
+        return REPRESENTATIVE[move] == move;
+    }
+
+    /**
+     * @param field   Das Spielfeld im Format [y][x].
+     * @param allowed Die erlaubten Transformationen, siehe {@link #allowed(int[])}.
+     * @return Die Bitmaske der erlaubten Transformationen, die das Spielfeld unverändert lassen.
+     */
+    public static int stabilizer(Color[][] field, int allowed) {
+        int stabilizer = 1 << IDENTITY;
+        for (int t = 1; t < COUNT; t++) {
+            if ((allowed >>> t & 1) == 0) {
+                continue;
+            }
+            boolean same = true;
+            for (int cell = 0; cell < CELLS && same; cell++) {
+                int mapped = CELL_MAP[t][cell];
+                same = field[cell / SIZE][cell % SIZE] == field[mapped / SIZE][mapped % SIZE];
+            }
+            if (same) {
+                stabilizer |= 1 << t;
+            }
+        }
+        return stabilizer;
+    }
+
+    /**
+     * Prüft, ob ein Zug der Vertreter seiner Symmetrieklasse ist. Von Zügen, die durch eine Symmetrie der
+     * Stellung oder durch gleiche Belegung ineinander übergehen, ist genau einer der Vertreter.
+     *
+     * @param stabilizer Die Symmetrien der Stellung, siehe {@link #stabilizer(Color[][], int)}.
+     */
+    public static boolean isCanonical(int move, int stabilizer) {
+        if (!isRepresentative(move)) {
+            return false;
+        }
+        for (int t = 1; t < COUNT; t++) {
+            if ((stabilizer >>> t & 1) != 0 && MOVE_MAP[t][move] < move) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Mask(int building, long low, long high) {
+    }
+}
@@ -0,0 +1,173 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+
+/**
+ * Teilt die Bedenkzeit auf die Züge einer Partie auf. Die Zugzeit steht jedem Zug voll zur Verfügung, der
+ * Zeitbonus wird auf die erwarteten eigenen Züge verteilt. Erwartet wird ein Zug pro eigenem Gebäude, das
+ * noch einen Platz findet. Das Mittelspiel erhält den größten Anteil: die Eröffnung beantwortet meist das
+ * Buch, im Endspiel gibt es wenige Züge und den exakten Löser.
+ * <p>
+ * Das Ergebnis ist ein {@link Budget} mit Zielzeit und harter Grenze. Die Suche beginnt nach der Zielzeit
+ * keine neue Iteration mehr und bricht an der harten Grenze ab. Ist das Budget zu knapp, geben
+ * {@link Mode#SHALLOW} und {@link Mode#GREEDY} die billigeren Rückfallstufen vor.
+ */
+public class TimeManager {
+    /** Zeitbudget in Millisekunden, falls keine Zeitvorgabe übergeben wurde. */
+    public static final long DEFAULT_BUDGET_MS = 10000;
+    /** Sicherheitsabstand zur Deadline, damit der Zug rechtzeitig zurückgegeben wird. */
+    private static final long SAFETY_MARGIN_MS = 250;
+    /** Untergrenze für das Zeitbudget. */
+    private static final long MIN_BUDGET_MS = 50;
+    /** Unterhalb dieser harten Grenze wird nur noch bis {@link #SHALLOW_DEPTH} gesucht. */
+    private static final long SHALLOW_BUDGET_MS = 500;
+    /** Unterhalb dieser harten Grenze wird ohne Suche der gierige Flächenzug gespielt. */
+    private static final long GREEDY_BUDGET_MS = 100;
+    /** Die maximale Tiefe im Modus {@link Mode#SHALLOW}. */
+    public static final int SHALLOW_DEPTH = 2;
+    /** Nach so vielen Iterationen mit demselben besten Zug gilt er als stabil. */
+    private static final int STABLE_ITERATIONS = 3;
+    /** Höchstens so viel vom Bonus darf ein einzelner Zug verbrauchen. */
+    private static final double MAX_BONUS_SHARE = 0.5;
+    /** Ab so vielen eigenen Gebäuden mit Platz gilt die Partie als Eröffnung, bis zu ENDGAME_TURNS als Endspiel. */
+    private static final int OPENING_TURNS = 12;
+    private static final int ENDGAME_TURNS = 4;
+    private static final double OPENING_WEIGHT = 0.5;
+    private static final double MIDDLEGAME_WEIGHT = 1.5;
+    private static final double ENDGAME_WEIGHT = 0.75;
+
+    /**
+     * Wie viel Aufwand der Zug sich leisten kann.
+     */
+    public enum Mode {
+        /** Iterative Vertiefung bis zur Zielzeit. */
+        FULL,
+        /** Nur eine flache Suche bis {@link #SHALLOW_DEPTH}. */
+        SHALLOW,
+        /** Keine Suche, der Zug mit dem größten Flächengewinn. */
+        GREEDY
+    }
+
+    /**
+     * Das Zeitbudget eines Zuges.
+     *
+     * @param start   Der Beginn des Zuges (System.currentTimeMillis).
+     * @param target  Die Zielzeit in Millisekunden; danach beginnt keine neue Iteration.
+     * @param maximum Die harte Grenze in Millisekunden.
+     * @param mode    Die Rückfallstufe, die das Budget zulässt.
+     */
+    public record Budget(long start, long target, long maximum, Mode mode) {
+        public long softDeadline() {
+            return start + target;
+        }
+
+        public long deadline() {
+            return start + maximum;
+        }
+
+        /**
+         * Entscheidet nach einer abgeschlossenen Iteration, ob die nächste begonnen wird. Ein stabiler bester
+         * Zug beendet die Suche schon bei der halben Zielzeit, ein gerade gewechselter Zug darf die Zielzeit um
+         * die Hälfte überziehen. Eine Iteration, die absehbar nicht vor der harten Grenze fertig wird, wird
+         * nicht begonnen.
+         *
+         * @param now                 Die aktuelle Zeit.
+         * @param stableIterations    Die Anzahl der letzten Iterationen mit unverändertem besten Zug, mindestens 1.
+         * @param lastIterationMillis Die Dauer der letzten Iteration.
+         */
+        public boolean startNextIteration(long now, int stableIterations, long lastIterationMillis) {
+            long elapsed = now - start;
+            long limit = stableIterations >= STABLE_ITERATIONS ? target / 2
+                    : stableIterations == 1 ? Math.min(maximum, target + target / 2)
+                    : target;
+            return elapsed < limit && elapsed + 2 * lastIterationMillis < maximum;
+        }
+    }
+
+    /**
+     * @return Ein TimeManager, der jedem Zug unabhängig von Uhr und Spielphase dasselbe Budget gibt, etwa für
+     * die Analyse einzelner Stellungen.
+     */
+    public static TimeManager fixed(long millis) {
+        return new TimeManager() {
+            @Override
+            public Budget allocate(Game game, int timeForTurn, int timeBonus, long start) {
+                return new Budget(start, millis, millis, mode(millis));
+            }
+        };
+    }
+
+    /**
+     * Berechnet das Budget für den Zug des Spielers am Zug ab jetzt.
+     */
+    public Budget allocate(Game game, int timeForTurn, int timeBonus) {
+        return allocate(game, timeForTurn, timeBonus, System.currentTimeMillis());
+    }
+
+    /**
+     * Berechnet das Budget für den Zug des Spielers am Zug.
+     *
+     * @param game        Das Spiel vor dem Zug.
+     * @param timeForTurn Die Zeit für den aktuellen Zug in Sekunden.
+     * @param timeBonus   Der verbleibende Zeitbonus in Sekunden.
+     * @param start       Der Zeitpunkt, zu dem der Zug angefragt wurde.
+     */
+    public Budget allocate(Game game, int timeForTurn, int timeBonus, long start) {
+        int turns = remainingTurns(game, game.getCurrentPlayer());
+        if (timeForTurn <= 0 && timeBonus <= 0) {
+            // Ohne Zeitvorgabe skaliert nur die Zielzeit mit der Spielphase
+            long target = Math.max(MIN_BUDGET_MS, Math.round(DEFAULT_BUDGET_MS * weight(turns) / MIDDLEGAME_WEIGHT));
+            return new Budget(start, target, DEFAULT_BUDGET_MS, Mode.FULL);
+        }
+
+        long turnMillis = Math.max(0, timeForTurn) * 1000L;
+        long bonusMillis = Math.max(0, timeBonus) * 1000L;
+        double weights = 0;
+        for (int remaining = turns; remaining >= 1; remaining--) {
+            weights += weight(remaining);
+        }
+        long share = Math.round(bonusMillis * weight(turns) / weights);
+        long maxShare = Math.round(bonusMillis * MAX_BONUS_SHARE);
+        long target = Math.max(MIN_BUDGET_MS, turnMillis + Math.min(share, maxShare) - SAFETY_MARGIN_MS);
+        long maximum = Math.max(target, turnMillis + Math.min(2 * share, maxShare) - SAFETY_MARGIN_MS);
+        return new Budget(start, target, maximum, mode(maximum));
+    }
+
+    private static Mode mode(long maximum) {
+        return maximum < GREEDY_BUDGET_MS ? Mode.GREEDY : maximum < SHALLOW_BUDGET_MS ? Mode.SHALLOW : Mode.FULL;
+    }
+
+    /**
+     * @return Die Anzahl der eigenen Gebäude, die noch irgendwo Platz finden, mindestens 1.
+     */
+    static int remainingTurns(Game game, Color player) {
+        BitBoard bitBoard = BitBoard.of(game.getBoard());
+        int turns = 0;
+        for (Building building : game.getBoard().getAllUnplacedBuildings()) {
+            if (building.getColor() == player && fits(bitBoard, building)) {
+                turns++;
+            }
+        }
+        return Math.max(1, turns);
+    }
+
+    private static boolean fits(BitBoard bitBoard, Building building) {
+        for (int footprint : Footprints.of(building)) {
+            if (bitBoard.canPlace(footprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Das Gewicht eines Zuges, vor dem noch so viele eigene Züge ausstehen.
+     */
+    private static double weight(int remainingTurns) {
+        return remainingTurns >= OPENING_TURNS ? OPENING_WEIGHT
+                : remainingTurns <= ENDGAME_TURNS ? ENDGAME_WEIGHT
+                : MIDDLEGAME_WEIGHT;
+    }
+}
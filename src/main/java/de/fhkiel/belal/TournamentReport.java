@@ -0,0 +1,155 @@
+package de.fhkiel.belal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Statistiken eines Turniers aus Sicht von Agent A: Siege, Unentschieden, Niederlagen, Score-Vorsprung,
+ * Elo-Schätzung mit 95%-Intervall und Perzentile der Zugzeiten beider Agenten.
+ */
+public class TournamentReport {
+    private static final double Z_95 = 1.96;
+
+    private final String nameA;
+    private final String nameB;
+    private final List<TournamentRunner.GameResult> results;
+
+    public TournamentReport(String nameA, String nameB, List<TournamentRunner.GameResult> results) {
+        this.nameA = nameA;
+        this.nameB = nameB;
+        this.results = results;
+    }
+
+    public int wins() {
+        return (int) results.stream().filter(r -> r.pointsA() == 1.0).count();
+    }
+
+    public int draws() {
+        return (int) results.stream().filter(r -> r.pointsA() == 0.5).count();
+    }
+
+    public int losses() {
+        return (int) results.stream().filter(r -> r.pointsA() == 0.0).count();
+    }
+
+    public double meanMargin() {
+        return results.stream().mapToInt(TournamentRunner.GameResult::marginA).average().orElse(0);
+    }
+
+    /**
+     * @return Die Elo-Differenz von A gegenüber B aus dem Punkteanteil.
+     */
+    public double elo() {
+        return elo(scoreFraction());
+    }
+
+    /**
+     * @return Untere und obere Grenze des 95%-Intervalls der Elo-Differenz.
+     */
+    public double[] eloInterval() {
+        double p = scoreFraction();
+        double error = Math.sqrt(p * (1 - p) / Math.max(1, results.size()));
+        return new double[]{elo(p - Z_95 * error), elo(p + Z_95 * error)};
+    }
+
+    private double scoreFraction() {
+        return results.stream().mapToDouble(TournamentRunner.GameResult::pointsA).sum() / Math.max(1, results.size());
+    }
+
+    private double elo(double p) {
+        // Punkteanteil von 0 oder 1 auf ein halbes Spiel begrenzen, sonst wäre die Differenz unendlich
+        double bound = 0.5 / Math.max(1, results.size());
+        double clamped = Math.min(1 - bound, Math.max(bound, p));
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+
+    /**
+     * @param percentile Das Perzentil zwischen 0 und 100.
+     * @return Die Zugzeit in Millisekunden.
+     */
+    public double latencyA(double percentile) {
+        return percentile(collect(true), percentile);
+    }
+
+    public double latencyB(double percentile) {
+        return percentile(collect(false), percentile);
+    }
+
+    private List<Long> collect(boolean a) {
+        List<Long> latencies = new ArrayList<>();
+        for (TournamentRunner.GameResult result : results) {
+            latencies.addAll(a ? result.latenciesA() : result.latenciesB());
+        }
+        Collections.sort(latencies);
+        return latencies;
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index))) / 1_000_000.0;
+    }
+
+    /**
+     * Schreibt eine Zeile pro Partie.
+     */
+    public void writeCsv(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            writer.write("game,black,white,score_a,score_b,points_a,margin_a,turns,illegal_a,illegal_b,"
+                    + "max_latency_a_ms,max_latency_b_ms\n");
+            for (TournamentRunner.GameResult r : results) {
+                writer.write(String.format(Locale.ROOT, "%d,%s,%s,%d,%d,%.1f,%d,%d,%d,%d,%.3f,%.3f%n",
+                        r.index(), r.aIsBlack() ? nameA : nameB, r.aIsBlack() ? nameB : nameA,
+                        r.scoreA(), r.scoreB(), r.pointsA(), r.marginA(), r.turns(), r.illegalA(), r.illegalB(),
+                        max(r.latenciesA()), max(r.latenciesB())));
+            }
+        }
+    }
+
+    /**
+     * Schreibt die Zusammenfassung als JSON-Objekt.
+     */
+    public void writeJson(Path path) throws IOException {
+        double[] interval = eloInterval();
+        String json = String.format(Locale.ROOT, """
+                        {
+                          "agentA": "%s",
+                          "agentB": "%s",
+                          "games": %d,
+                          "wins": %d,
+                          "draws": %d,
+                          "losses": %d,
+                          "meanMargin": %.3f,
+                          "elo": %.1f,
+                          "eloLow": %.1f,
+                          "eloHigh": %.1f,
+                          "latencyMsA": {"p50": %.3f, "p90": %.3f, "p99": %.3f, "max": %.3f},
+                          "latencyMsB": {"p50": %.3f, "p90": %.3f, "p99": %.3f, "max": %.3f}
+                        }
+                        """,
+                nameA, nameB, results.size(), wins(), draws(), losses(), meanMargin(), elo(), interval[0], interval[1],
+                latencyA(50), latencyA(90), latencyA(99), latencyA(100),
+                latencyB(50), latencyB(90), latencyB(99), latencyB(100));
+        Files.writeString(path, json);
+    }
+
+    public String summary() {
+        double[] interval = eloInterval();
+        return String.format(Locale.ROOT,
+                "%s vs %s: %d games, +%d =%d -%d, margin %.2f, elo %.1f [%.1f, %.1f], p99 latency %.1fms / %.1fms",
+                nameA, nameB, results.size(), wins(), draws(), losses(), meanMargin(), elo(), interval[0], interval[1],
+                latencyA(99), latencyB(99));
+    }
+
+    private static double max(List<Long> latencies) {
+        return latencies.stream().mapToLong(Long::longValue).max().orElse(0) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,234 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.ai.Agent;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Headless Selbstspiel-Turnier zwischen zwei Agenten, ganz ohne GUI und nur über die Game-API.
+ * Die Partien laufen parallel auf einem Thread-Pool. Jeder Thread erzeugt seine beiden Agenten nur einmal und
+ * spielt mit ihnen alle seine Partien, damit große Tabellen wie die des MinimaxAgent nicht pro Partie neu
+ * angelegt werden.
+ * Die Farben wechseln von Partie zu Partie. Ergebnisse werden als CSV (eine Zeile pro Partie) und
+ * als JSON-Zusammenfassung geschrieben.
+ * <p>
+ * Aufruf: {@code TournamentRunner <agentA> <agentB> [--games N] [--threads T] [--time S] [--bonus S] [--out PREFIX]
+ * [--record FILE]}
+ * <br>Agenten werden über ihren Klassennamen angegeben, z.B. MinimaxAgent oder de.fhkiel.belal.LookAheadAgent,
+ * und brauchen einen parameterlosen Konstruktor. Mit --record werden alle Partien zusätzlich an eine
+ * Partiedatei im Format von {@link RecordedGame} angehängt.
+ */
+public class TournamentRunner {
+    /** Abbruch für Partien, in denen beide Seiten wiederholt keinen Zug liefern. */
+    private static final int MAX_CONSECUTIVE_PASSES = 2;
+    private static final int MAX_TURNS = 200;
+
+    private final ThreadLocal<Agent> agentA;
+    private final ThreadLocal<Agent> agentB;
+    private final int timeForTurn;
+    private final int timeBonus;
+    private GameRecordWriter recordWriter;
+
+    /**
+     * @param agentA      Erzeugt eine neue Instanz des ersten Agenten, einmal pro Thread.
+     * @param agentB      Erzeugt eine neue Instanz des zweiten Agenten, einmal pro Thread.
+     * @param timeForTurn Die Zeit pro Zug in Sekunden, die an calculateTurn übergeben wird.
+     * @param timeBonus   Der Zeitbonus in Sekunden, der an calculateTurn übergeben wird.
+     */
+    public TournamentRunner(Supplier<Agent> agentA, Supplier<Agent> agentB, int timeForTurn, int timeBonus) {
+        this.agentA = ThreadLocal.withInitial(agentA);
+        this.agentB = ThreadLocal.withInitial(agentB);
+        this.timeForTurn = timeForTurn;
+        this.timeBonus = timeBonus;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: TournamentRunner <agentA> <agentB> [--games N] [--threads T] [--time S] [--bonus S] [--out PREFIX] [--record FILE]");
+            System.exit(2);
+        }
+        int games = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int time = 1;
+        int bonus = 0;
+        String out = "tournament";
+        String record = null;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--time" -> time = Integer.parseInt(args[i + 1]);
+                case "--bonus" -> bonus = Integer.parseInt(args[i + 1]);
+                case "--out" -> out = args[i + 1];
+                case "--record" -> record = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        TournamentRunner runner = new TournamentRunner(agentFactory(args[0]), agentFactory(args[1]), time, bonus);
+        List<GameResult> results;
+        if (record != null) {
+            try (GameRecordWriter writer = GameRecordWriter.open(Path.of(record))) {
+                runner.setRecordWriter(writer);
+                results = runner.run(games, threads);
+            }
+        } else {
+            results = runner.run(games, threads);
+        }
+
+        TournamentReport report = new TournamentReport(args[0], args[1], results);
+        report.writeCsv(Path.of(out + ".csv"));
+        report.writeJson(Path.of(out + ".json"));
+        System.err.println(report.summary());
+    }
+
+    /**
+     * Erzeugt Agenten über den Klassennamen. Namen ohne Paket werden in de.fhkiel.belal gesucht.
+     */
+    public static Supplier<Agent> agentFactory(String name) throws ClassNotFoundException {
+        String className = name.contains(".") ? name : TournamentRunner.class.getPackageName() + "." + name;
+        Class<? extends Agent> type = Class.forName(className).asSubclass(Agent.class);
+        return () -> {
+            try {
+                return type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create agent " + className, e);
+            }
+        };
+    }
+
+    /**
+     * @param recordWriter Schreibt jede beendete Partie mit, null schaltet das Mitschreiben ab.
+     */
+    public void setRecordWriter(GameRecordWriter recordWriter) {
+        this.recordWriter = recordWriter;
+    }
+
+    /**
+     * Spielt die Partien parallel. In geraden Partien spielt Agent A Schwarz, in ungeraden Weiß.
+     *
+     * @param games   Die Anzahl der Partien.
+     * @param threads Die Anzahl gleichzeitig laufender Partien.
+     * @return Die Ergebnisse in Partie-Reihenfolge.
+     */
+    public List<GameResult> run(int games, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> futures = new ArrayList<>(games);
+            for (int i = 0; i < games; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> playGame(index)));
+            }
+            List<GameResult> results = new ArrayList<>(games);
+            for (Future<GameResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Spielt eine Partie. Die Kathedrale setzt der Agent, der Weiß spielt, danach beginnt Schwarz.
+     */
+    GameResult playGame(int index) {
+        boolean aIsBlack = index % 2 == 0;
+        Agent black = aIsBlack ? agentA.get() : agentB.get();
+        Agent white = aIsBlack ? agentB.get() : agentA.get();
+        List<Long> latenciesA = new ArrayList<>();
+        List<Long> latenciesB = new ArrayList<>();
+        List<Placement> moves = new ArrayList<>();
+        List<Long> moveMillis = new ArrayList<>();
+        List<Color> movers = new ArrayList<>();
+        long startMillis = System.currentTimeMillis();
+        int illegalA = 0;
+        int illegalB = 0;
+
+        Game game = new Game();
+        int passes = 0;
+        int turns = 0;
+        while (!game.isFinished() && passes < MAX_CONSECUTIVE_PASSES && turns < MAX_TURNS) {
+            boolean blackToMove = game.getCurrentPlayer() == Color.Black;
+            Agent agent = blackToMove ? black : white;
+            boolean isA = blackToMove == aIsBlack;
+
+            long start = System.nanoTime();
+            Optional<Placement> placement = agent.calculateTurn(game.copy(), timeForTurn, timeBonus);
+            long latency = System.nanoTime() - start;
+            (isA ? latenciesA : latenciesB).add(latency);
+            moveMillis.add(latency / 1_000_000);
+            movers.add(blackToMove ? Color.Black : Color.White);
+
+            if (placement.isPresent() && game.takeTurn(placement.get())) {
+                moves.add(placement.get());
+                passes = 0;
+            } else {
+                if (placement.isPresent()) {
+                    if (isA) {
+                        illegalA++;
+                    } else {
+                        illegalB++;
+                    }
+                }
+                game.forfeitTurn();
+                moves.add(null);
+                passes++;
+            }
+            turns++;
+        }
+
+        Map<Color, Integer> score = game.score();
+        if (recordWriter != null) {
+            try {
+                recordWriter.write(black.getClass().getSimpleName(), white.getClass().getSimpleName(), startMillis,
+                        score, moves, moveMillis, movers);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int blackScore = score.getOrDefault(Color.Black, 0);
+        int whiteScore = score.getOrDefault(Color.White, 0);
+        int scoreA = aIsBlack ? blackScore : whiteScore;
+        int scoreB = aIsBlack ? whiteScore : blackScore;
+        return new GameResult(index, aIsBlack, scoreA, scoreB, turns, illegalA, illegalB, latenciesA, latenciesB, moves);
+    }
+
+    /**
+     * Ergebnis einer Partie aus Sicht von Agent A. Der Score ist die Fläche der nicht gesetzten Gebäude,
+     * weniger ist besser.
+     *
+     * @param moves Die gespielten Züge, null für einen ausgelassenen Zug.
+     */
+    public record GameResult(int index, boolean aIsBlack, int scoreA, int scoreB, int turns, int illegalA,
+                             int illegalB, List<Long> latenciesA, List<Long> latenciesB, List<Placement> moves) {
+
+        /**
+         * @return 1 für einen Sieg von A, 0.5 für ein Unentschieden, 0 für eine Niederlage.
+         */
+        public double pointsA() {
+            return scoreA < scoreB ? 1.0 : scoreA == scoreB ? 0.5 : 0.0;
+        }
+
+        /**
+         * @return Der Vorsprung von A; positiv, wenn A weniger Fläche übrig hat.
+         */
+        public int marginA() {
+            return scoreB - scoreA;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.Arrays;
+
+/**
+ * Transpositionstabelle fester Größe für die Minimax-Suche.
+ * Jeder Bucket hat zwei Plätze: der erste behält den tiefsten Eintrag (depth-preferred),
+ * der zweite wird immer überschrieben (always-replace).
+ * <p>
+ * Die Tabelle ist lock-frei und kann von mehreren Such-Threads gleichzeitig genutzt werden: ein Eintrag
+ * besteht aus einem gepackten long mit Score, Tiefe, Grenze, Alter und Zug sowie dem Schlüssel XOR diesem
+ * long. Ein von einem anderen Thread halb geschriebener Eintrag fällt beim Lesen durch die Prüfsumme.
+ */
+public class TranspositionTable {
+    public static final byte EXACT = 0;
+    public static final byte LOWER_BOUND = 1;
+    public static final byte UPPER_BOUND = 2;
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final int MAX_ENTRIES = 1 << 28;
+
+    // Aufteilung des gepackten Eintrags: Score 32 Bit, Tiefe+1 8 Bit, Grenze 2 Bit, Alter 8 Bit, Zug+1 14 Bit
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int AGE_SHIFT = 42;
+    private static final int MOVE_SHIFT = 50;
+    private static final int MAX_STORED_DEPTH = 254;
+
+    static {
+        if (Footprints.count() >= (1 << (64 - MOVE_SHIFT)) - 1) {
+            throw new IllegalStateException("Too many footprints for the entry layout: " + Footprints.count());
+        }
+    }
+
+    private final long[] checks;
+    private final long[] entries;
+    private final int bucketMask;
+    private volatile int age;
+
+    /**
+     * @param sizeMb Die Größe der Tabelle in Megabyte.
+     */
+    public TranspositionTable(int sizeMb) {
+        long count = Math.max(2, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+        int capacity = Integer.highestOneBit((int) Math.min(count, MAX_ENTRIES));
+        checks = new long[capacity];
+        entries = new long[capacity];
+        bucketMask = capacity / 2 - 1;
+    }
+
+    /**
+     * Leert die Tabelle.
+     */
+    public void clear() {
+        Arrays.fill(checks, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * Markiert den Beginn einer neuen Suche. Einträge älterer Suchen werden bevorzugt ersetzt.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Sucht den Eintrag zu einem Hash.
+     *
+     * @param key Der Zobrist-Hash der Stellung.
+     * @return Der gepackte Eintrag oder 0, wenn keiner vorhanden ist.
+     */
+    public long probe(long key) {
+        int index = bucket(key);
+        for (int i = index; i < index + 2; i++) {
+            long entry = entries[i];
+            if (entry != 0 && (checks[i] ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & 0xFF) - 1;
+    }
+
+    public static byte bound(long entry) {
+        return (byte) ((entry >>> BOUND_SHIFT) & 0x3);
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static Placement move(long entry) {
+        int move = moveIndex(entry);
+        return move < 0 ? null : Footprints.placement(move);
+    }
+
+    /**
+     * @return Der Footprint-Index des gespeicherten Zuges oder -1.
+     */
+    public static int moveIndex(long entry) {
+        return (int) (entry >>> MOVE_SHIFT) - 1;
+    }
+
+    /**
+     * Speichert ein Suchergebnis.
+     *
+     * @param key   Der Zobrist-Hash der Stellung.
+     * @param depth Die verbleibende Suchtiefe, mit der der Score berechnet wurde.
+     * @param bound EXACT, LOWER_BOUND oder UPPER_BOUND.
+     * @param score Der Score der Stellung.
+     * @param move  Der beste Zug oder null.
+     */
+    public void store(long key, int depth, byte bound, int score, Placement move) {
+        store(key, depth, bound, score, move == null ? -1 : Footprints.indexOf(move));
+    }
+
+    /**
+     * Wie {@link #store(long, int, byte, int, Placement)}, der Zug wird als Footprint-Index übergeben.
+     *
+     * @param moveIndex Der Footprint-Index des besten Zuges oder -1.
+     */
+    public void store(long key, int depth, byte bound, int score, int moveIndex) {
+        int index = bucket(key);
+        int currentAge = age;
+        long preferred = entries[index];
+        boolean samePosition = preferred != 0 && (checks[index] ^ preferred) == key;
+        // Der depth-preferred-Platz wird nur für gleich tiefe oder tiefere Ergebnisse, für dieselbe
+        // Stellung oder für Einträge vergangener Suchen freigegeben
+        if (preferred != 0 && !samePosition && age(preferred) == currentAge && depth < depth(preferred)) {
+            index++;
+        }
+
+        if (moveIndex < 0) {
+            long old = entries[index];
+            if (old != 0 && (checks[index] ^ old) == key) {
+                moveIndex = (int) (old >>> MOVE_SHIFT) - 1;
+            }
+        }
+
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) (Math.min(depth, MAX_STORED_DEPTH) + 1) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) currentAge << AGE_SHIFT)
+                | ((long) (moveIndex + 1) << MOVE_SHIFT);
+        entries[index] = entry;
+        checks[index] = key ^ entry;
+    }
+
+    private static int age(long entry) {
+        return (int) ((entry >>> AGE_SHIFT) & 0xFF);
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+}
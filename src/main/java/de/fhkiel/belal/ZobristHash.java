@@ -0,0 +1,275 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Board;
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Inkrementeller Zobrist-Hash einer Cathedral-Stellung.
+ * Der Hash umfasst die Felder des 10x10-Bretts, die noch nicht platzierten Gebäude und den Spieler am Zug.
+ * Während der Suche wird er pro Zug über die von {@link AreaTracker} gemeldeten geänderten Felder
+ * aktualisiert statt neu berechnet.
+ * <p>
+ * Zusätzlich wird der Feldanteil für alle Symmetrien aus {@link Symmetry} mitgeführt. Der kanonische Hash ist
+ * das Minimum über alle erlaubten Transformationen, symmetrische Stellungen teilen sich damit einen Schlüssel.
+ */
+public class ZobristHash {
+    private static final int SIZE = 10;
+    // Mehr Exemplare eines Gebäudetyps gibt es im Spiel nicht
+    private static final int MAX_COPIES = 8;
+
+    private static final long[][][] CELL_KEYS = new long[SIZE][SIZE][Color.values().length];
+    private static final long[][] BUILDING_KEYS = new long[Building.values().length][MAX_COPIES + 1];
+    private static final long[] SIDE_KEYS = new long[Color.values().length];
+    private static final long[] ROOT_KEYS = new long[Color.values().length];
+
+    static {
+        // Fester Seed, damit alle Instanzen (und alle Threads) dieselben Schlüssel verwenden
+        Random random = new Random(0x5EEDCA7EL);
+        for (long[][] row : CELL_KEYS) {
+            for (long[] cell : row) {
+                for (int c = 0; c < cell.length; c++) {
+                    cell[c] = random.nextLong();
+                }
+            }
+        }
+        for (long[] building : BUILDING_KEYS) {
+            for (int n = 0; n < building.length; n++) {
+                building[n] = random.nextLong();
+            }
+        }
+        for (int c = 0; c < SIDE_KEYS.length; c++) {
+            SIDE_KEYS[c] = random.nextLong();
+        }
+        for (int c = 0; c < ROOT_KEYS.length; c++) {
+            ROOT_KEYS[c] = random.nextLong();
+        }
+    }
+
+    private final int[][] countStack;
+    private final long[] hashStack;
+    private final long[][] fieldStack;
+    private final Color[] sideStack;
+    private final int[] counts = new int[Building.values().length];
+    private final long[] fieldHashes = new long[Symmetry.COUNT];
+    private int top;
+    private long hash;
+    private Color side;
+    private long canonical;
+    private int transform;
+
+    /**
+     * @param maxPly Die maximale Anzahl gleichzeitig ausgeführter Züge.
+     */
+    public ZobristHash(int maxPly) {
+        countStack = new int[maxPly + 1][counts.length];
+        hashStack = new long[maxPly + 1];
+        fieldStack = new long[maxPly + 1][Symmetry.COUNT];
+        sideStack = new Color[maxPly + 1];
+    }
+
+    /**
+     * Berechnet den Hash einer Stellung vollständig neu.
+     *
+     * @param game Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
+     * @return Der Hash der Stellung.
+     */
+    public static long hash(Game game) {
+        Board board = game.getBoard();
+        int[] buildingCounts = new int[Building.values().length];
+        countUnplaced(board, buildingCounts);
+        return fieldHash(board.getField()) ^ buildingHash(buildingCounts) ^ SIDE_KEYS[game.getCurrentPlayer().ordinal()];
+    }
+
+    /**
+     * Berechnet den kanonischen Hash einer Stellung vollständig neu.
+     *
+     * @param game Das Spielobjekt, das den aktuellen Zustand des Spiels repräsentiert.
+     * @return Der kanonische Hash der Stellung.
+     */
+    public static long canonical(Game game) {
+        ZobristHash zobrist = new ZobristHash(0);
+        zobrist.reset(game);
+        return zobrist.canonical();
+    }
+
+    /**
+     * Setzt den inkrementellen Zustand auf die übergebene Stellung zurück.
+     *
+     * @return Der Hash der Stellung.
+     */
+    public long reset(Game game) {
+        top = 0;
+        countUnplaced(game.getBoard(), counts);
+        side = game.getCurrentPlayer();
+        Color[][] field = game.getBoard().getField();
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            fieldHashes[t] = fieldHash(field, t);
+        }
+        hash = fieldHashes[Symmetry.IDENTITY] ^ buildingHash(counts) ^ SIDE_KEYS[side.ordinal()];
+        updateCanonical();
+        return hash;
+    }
+
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Schlüssel für den Spieler an der Wurzel. Eine Suche, deren Scores aus Sicht dieses Spielers gelten, verknüpft
+     * ihn mit {@link #canonical()}; so teilen sich beide Farben eine Transpositionstabelle, ohne Einträge der
+     * anderen Farbe zu treffen.
+     */
+    public static long rootKey(Color root) {
+        return ROOT_KEYS[root.ordinal()];
+    }
+
+    /**
+     * @return Der Hash der kanonischen Form der Stellung, Schlüssel für Transpositionstabelle und Eröffnungsbuch.
+     */
+    public long canonical() {
+        return canonical;
+    }
+
+    /**
+     * @return Die Transformation, die die Stellung in ihre kanonische Form überführt. Züge werden mit
+     * {@link Symmetry#move(int, int)} in die kanonische Form und mit der Inversen zurück abgebildet.
+     */
+    public int transform() {
+        return transform;
+    }
+
+    /**
+     * @return Die Anzahl der noch nicht platzierten Exemplare des Gebäudes in der aktuellen Stellung.
+     */
+    public int unplaced(Building building) {
+        return counts[building.ordinal()];
+    }
+
+    /**
+     * Sichert den aktuellen Zustand. Muss vor jedem update aufgerufen werden.
+     */
+    public void push() {
+        System.arraycopy(counts, 0, countStack[top], 0, counts.length);
+        System.arraycopy(fieldHashes, 0, fieldStack[top], 0, fieldHashes.length);
+        hashStack[top] = hash;
+        sideStack[top] = side;
+        top++;
+    }
+
+    /**
+     * Aktualisiert den Hash nach einem erfolgreichen takeTurn über die geänderten Felder.
+     *
+     * @param game      Das Spiel nach dem Zug.
+     * @param placement Der ausgeführte Zug.
+     * @param areas     Der bereits auf den Zug angewendete AreaTracker.
+     * @return Der neue Hash.
+     */
+    public long update(Game game, Placement placement, AreaTracker areas) {
+        Color placedColor = placement.building().getColor();
+        boolean captured = false;
+
+        for (int i = 0; i < areas.lastChangeCount(); i++) {
+            int cell = areas.lastChangedCell(i);
+            int x = cell % SIZE;
+            int y = cell / SIZE;
+            Color old = areas.lastChangedFrom(i);
+            int now = areas.cell(x, y).ordinal();
+            hash ^= CELL_KEYS[y][x][old.ordinal()] ^ CELL_KEYS[y][x][now];
+            for (int t = 0; t < Symmetry.COUNT; t++) {
+                int mapped = Symmetry.cell(t, cell);
+                long[] keys = CELL_KEYS[mapped / SIZE][mapped % SIZE];
+                fieldHashes[t] ^= keys[old.ordinal()] ^ keys[now];
+            }
+            // Ein fremdes Gebäude ist verschwunden, es geht an seinen Besitzer zurück
+            if (isBuildingColor(old) && old != placedColor) {
+                captured = true;
+            }
+        }
+
+        hash ^= buildingHash(counts);
+        if (captured) {
+            countUnplaced(game.getBoard(), counts);
+        } else {
+            counts[placement.building().ordinal()]--;
+        }
+        hash ^= buildingHash(counts);
+
+        Color next = game.getCurrentPlayer();
+        hash ^= SIDE_KEYS[side.ordinal()] ^ SIDE_KEYS[next.ordinal()];
+        side = next;
+        updateCanonical();
+        return hash;
+    }
+
+    /**
+     * Stellt den mit push gesicherten Zustand wieder her. Muss nach jedem undoLastTurn aufgerufen werden.
+     */
+    public void pop() {
+        top--;
+        System.arraycopy(countStack[top], 0, counts, 0, counts.length);
+        System.arraycopy(fieldStack[top], 0, fieldHashes, 0, fieldHashes.length);
+        hash = hashStack[top];
+        side = sideStack[top];
+        updateCanonical();
+    }
+
+    /**
+     * Bestimmt den kanonischen Hash als Minimum über alle Transformationen, die die noch nicht platzierten
+     * Gebäude erlauben. Gebäudeanteil und Spieler am Zug sind unter allen Symmetrien gleich.
+     */
+    private void updateCanonical() {
+        int allowed = Symmetry.allowed(counts);
+        long rest = hash ^ fieldHashes[Symmetry.IDENTITY];
+        canonical = hash;
+        transform = Symmetry.IDENTITY;
+        for (int t = 1; t < Symmetry.COUNT; t++) {
+            if ((allowed >>> t & 1) != 0 && (fieldHashes[t] ^ rest) < canonical) {
+                canonical = fieldHashes[t] ^ rest;
+                transform = t;
+            }
+        }
+    }
+
+    private static boolean isBuildingColor(Color color) {
+        return color == Color.Blue || color == Color.Black || color == Color.White;
+    }
+
+    private static void countUnplaced(Board board, int[] buildingCounts) {
+        Arrays.fill(buildingCounts, 0);
+        for (Building building : board.getAllUnplacedBuildings()) {
+            buildingCounts[building.ordinal()]++;
+        }
+    }
+
+    private static long fieldHash(Color[][] field) {
+        return fieldHash(field, Symmetry.IDENTITY);
+    }
+
+    /**
+     * @return Der Feldanteil des Hashes für das mit der Transformation abgebildete Spielfeld.
+     */
+    private static long fieldHash(Color[][] field, int transform) {
+        long h = 0;
+        for (int y = 0; y < SIZE; ++y) {
+            for (int x = 0; x < SIZE; ++x) {
+                int mapped = Symmetry.cell(transform, y * SIZE + x);
+                h ^= CELL_KEYS[mapped / SIZE][mapped % SIZE][field[y][x].ordinal()];
+            }
+        }
+        return h;
+    }
+
+    private static long buildingHash(int[] buildingCounts) {
+        long h = 0;
+        for (int b = 0; b < buildingCounts.length; b++) {
+            h ^= BUILDING_KEYS[b][Math.min(buildingCounts[b], MAX_COPIES)];
+        }
+        return h;
+    }
+}
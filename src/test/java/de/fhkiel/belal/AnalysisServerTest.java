@@ -0,0 +1,170 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Startet den {@link AnalysisServer} auf einem freien Port, schickt ihm eine mit {@link GameRecordWriter}
+ * geschriebene Partiedatei und prüft die CSV-Zeilen gegen die nachgespielten Stellungen.
+ */
+class AnalysisServerTest {
+    private static final int WORKERS = 2;
+    private static final int TT_SIZE_MB = 4;
+    private static final long MILLIS = 100;
+    private static final int UNFINISHED_PLIES = 6;
+    private static final Pattern QUOTED = Pattern.compile("\"([^\"]*)\"");
+
+    @Test
+    void everyPositionOfTheRecordIsAnalysed() throws IOException, InterruptedException {
+        List<List<Placement>> games = List.of(randomGame(21, Integer.MAX_VALUE), randomGame(22, UNFINISHED_PLIES));
+        Path file = Files.createTempFile("records", ".rec");
+        try (AnalysisServer server = AnalysisServer.start(0, WORKERS, TT_SIZE_MB, MILLIS)) {
+            try (GameRecordWriter writer = GameRecordWriter.open(file)) {
+                for (List<Placement> moves : games) {
+                    write(writer, moves);
+                }
+            }
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.port();
+            assertEquals("ok " + WORKERS + " workers\n", client.send(HttpRequest.newBuilder(URI.create(base + "/health"))
+                    .build(), HttpResponse.BodyHandlers.ofString()).body());
+
+            // Beide Anfragen laufen gleichzeitig auf eigenen Workern
+            CompletableFuture<HttpResponse<String>> all = post(client, base + "/analyse?millis=" + MILLIS + "&positions=all", file);
+            CompletableFuture<HttpResponse<String>> last = post(client, base + "/analyse?millis=" + MILLIS, file);
+
+            List<int[]> expectedAll = new ArrayList<>();
+            List<int[]> expectedLast = new ArrayList<>();
+            for (int g = 0; g < games.size(); g++) {
+                for (int ply = 0; ply <= games.get(g).size(); ply++) {
+                    if (!replay(games.get(g), ply).isFinished()) {
+                        expectedAll.add(new int[]{g, ply});
+                    }
+                }
+                if (!replay(games.get(g), games.get(g).size()).isFinished()) {
+                    expectedLast.add(new int[]{g, games.get(g).size()});
+                }
+            }
+            // Die erste Partie ist zu Ende gespielt und taucht ohne positions=all nicht auf
+            assertEquals(List.of(1), expectedLast.stream().map(row -> row[0]).toList());
+
+            assertRows(games, expectedAll, all.join());
+            assertRows(games, expectedLast, last.join());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertRows(List<List<Placement>> games, List<int[]> expected, HttpResponse<String> response) {
+        assertEquals(200, response.statusCode(), response.body());
+        String[] lines = response.body().split("\n");
+        assertEquals("game,ply," + SearchRecord.CSV_HEADER + ",pv", lines[0]);
+        assertEquals(expected.size(), lines.length - 1, response.body());
+        for (int i = 0; i < expected.size(); i++) {
+            String row = lines[i + 1];
+            String[] columns = row.split(",", 5);
+            int g = expected.get(i)[0];
+            int ply = expected.get(i)[1];
+            assertEquals(g, Integer.parseInt(columns[0]), row);
+            assertEquals(ply, Integer.parseInt(columns[1]), row);
+
+            Game position = replay(games.get(g), ply);
+            assertEquals(position.getCurrentPlayer().toString(), columns[3], row);
+            Matcher quoted = QUOTED.matcher(row);
+            assertTrue(quoted.find(), row);
+            String bestMove = quoted.group(1);
+            assertTrue(isLegal(position, bestMove), "illegal best move in " + row);
+            assertTrue(quoted.find(), row);
+            assertTrue(quoted.group(1).startsWith(bestMove), "pv does not start with the best move in " + row);
+        }
+    }
+
+    /**
+     * @return Ob einer der Züge des Spielers am Zug so ausgegeben wird und vom Spiel angenommen wird.
+     */
+    private static boolean isLegal(Game game, String move) {
+        for (Building building : game.getPlacableBuildings()) {
+            for (int footprint : Footprints.of(building)) {
+                Placement placement = Footprints.placement(footprint);
+                if (placement.toString().equals(move) && game.copy().takeTurn(placement)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static CompletableFuture<HttpResponse<String>> post(HttpClient client, String uri, Path file)
+            throws IOException {
+        return client.sendAsync(HttpRequest.newBuilder(URI.create(uri)).POST(HttpRequest.BodyPublishers.ofFile(file))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Spielt zufällige legale Züge wie der {@link TournamentRunner}: Kann der Spieler am Zug nicht setzen, setzt
+     * er aus.
+     */
+    private static List<Placement> randomGame(long seed, int maxPlies) {
+        Random random = new Random(seed);
+        Game game = new Game();
+        List<Placement> moves = new ArrayList<>();
+        while (!game.isFinished() && moves.size() < maxPlies) {
+            Placement placement = PositionSampler.randomPlacement(game, random);
+            if (placement != null && game.takeTurn(placement)) {
+                moves.add(placement);
+            } else {
+                game.forfeitTurn();
+                moves.add(null);
+            }
+        }
+        return moves;
+    }
+
+    private static void write(GameRecordWriter writer, List<Placement> moves) throws IOException {
+        Game game = new Game();
+        List<Long> millis = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        for (Placement placement : moves) {
+            millis.add(MILLIS);
+            colors.add(game.getCurrentPlayer());
+            if (placement == null) {
+                game.forfeitTurn();
+            } else {
+                game.takeTurn(placement);
+            }
+        }
+        writer.write("random", "random", 0, game.score(), moves, millis, colors);
+    }
+
+    private static Game replay(List<Placement> moves, int plies) {
+        Game game = new Game();
+        for (Placement placement : moves.subList(0, plies)) {
+            if (placement == null) {
+                game.forfeitTurn();
+            } else {
+                assertTrue(game.takeTurn(placement));
+            }
+        }
+        return game;
+    }
+}
@@ -0,0 +1,69 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vergleicht den inkrementell geführten {@link AreaTracker} nach jedem apply und undo mit einem Tracker, der
+ * dieselbe Stellung per reset vollständig neu zählt.
+ */
+class AreaTrackerTest {
+    private static final int MAX_PLY = 64;
+    private static final int GAMES = 20;
+    private static final int STEPS = 120;
+    private static final double UNDO_PROBABILITY = 0.3;
+
+    @Test
+    void incrementalUpdateMatchesRecount() {
+        Random random = new Random(6);
+        AreaTracker incremental = new AreaTracker(MAX_PLY);
+        AreaTracker recount = new AreaTracker(MAX_PLY);
+        int ownedPositions = 0;
+        for (int i = 0; i < GAMES; i++) {
+            Game game = new Game();
+            incremental.reset(game);
+            int depth = 0;
+            for (int step = 0; step < STEPS; step++) {
+                Placement placement = random.nextDouble() < UNDO_PROBABILITY ? null
+                        : PositionSampler.randomPlacement(game, random);
+                if (placement != null && depth < MAX_PLY) {
+                    assertTrue(game.takeTurn(placement), placement::toString);
+                    incremental.apply(game, placement);
+                    depth++;
+                } else if (depth > 0) {
+                    game.undoLastTurn();
+                    incremental.undo();
+                    depth--;
+                } else {
+                    continue;
+                }
+                recount.reset(game);
+                assertSameState(recount, incremental, "game " + i + " step " + step);
+                if (incremental.ownedArea(Color.Black) + incremental.ownedArea(Color.White) > 0) {
+                    ownedPositions++;
+                }
+            }
+        }
+        // Ohne eroberte Fläche wäre die Flutfüllung nicht geprüft
+        assertTrue(ownedPositions > 0, "no position with owned area");
+    }
+
+    private static void assertSameState(AreaTracker expected, AreaTracker actual, String position) {
+        for (Color color : Color.values()) {
+            assertEquals(expected.pieceCells(color), actual.pieceCells(color), () -> position + " pieceCells " + color);
+            assertEquals(expected.low(color), actual.low(color), () -> position + " low " + color);
+            assertEquals(expected.high(color), actual.high(color), () -> position + " high " + color);
+        }
+        for (Color player : new Color[]{Color.Black, Color.White}) {
+            assertEquals(expected.ownedArea(player), actual.ownedArea(player), () -> position + " ownedArea " + player);
+            assertEquals(expected.score(player), actual.score(player), () -> position + " score " + player);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Board;
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Direction;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vergleicht {@link BitBoard} und {@link Footprints} mit {@link Board#placeBuilding(Placement)} für jedes
+ * Gebäude, jede Richtung und jede Position, auf dem leeren Brett und auf gespielten Stellungen.
+ */
+class BitBoardTest {
+    private static final int SIZE = 10;
+    private static final long SEED = 3;
+    private static final int GAMES = 4;
+    /** Jede wievielte Stellung einer Partie geprüft wird. */
+    private static final int SAMPLE_EVERY = 5;
+
+    @Test
+    void footprintIndicesRoundTrip() {
+        for (int index = 0; index < Footprints.count(); index++) {
+            Placement placement = Footprints.placement(index);
+            assertEquals(index, Footprints.indexOf(placement), placement::toString);
+            assertEquals(placement.building(), Footprints.building(index));
+            assertEquals(placement.x(), Footprints.x(index));
+            assertEquals(placement.y(), Footprints.y(index));
+        }
+    }
+
+    @Test
+    void canPlaceMatchesBoardOnEmptyBoard() {
+        assertCanPlaceMatchesBoard(new Game().getBoard());
+    }
+
+    @Test
+    void canPlaceMatchesBoardOnPlayedBoards() {
+        // Zufällige Partien bis zum Ende, mit Eroberungen und Stellungen ohne passendes Gebäude
+        Random random = new Random(SEED);
+        List<Board> boards = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++) {
+            Game game = new Game();
+            for (int ply = 1; !game.isFinished(); ply++) {
+                Placement placement = PositionSampler.randomPlacement(game, random);
+                if (placement == null) {
+                    break;
+                }
+                game.takeTurn(placement);
+                if (ply % SAMPLE_EVERY == 0) {
+                    boards.add(game.getBoard());
+                }
+            }
+            boards.add(game.getBoard());
+        }
+        for (Board board : boards) {
+            assertCanPlaceMatchesBoard(board);
+        }
+    }
+
+    private static void assertCanPlaceMatchesBoard(Board board) {
+        BitBoard bitBoard = BitBoard.of(board);
+        assertTrue(bitBoard.matches(board), "BitBoard.of differs from board");
+        List<Building> unplaced = board.getAllUnplacedBuildings();
+        for (Building building : Building.values()) {
+            for (Direction direction : building.getTurnable().getPossibleDirections()) {
+                for (int y = 0; y < SIZE; y++) {
+                    for (int x = 0; x < SIZE; x++) {
+                        Placement placement = new Placement(x, y, direction, building);
+                        int index = Footprints.indexOf(placement);
+                        // canPlace prüft die Verfügbarkeit des Gebäudes nicht, das übernimmt hier der Test
+                        boolean expected = board.copy().placeBuilding(placement);
+                        boolean actual = index >= 0 && unplaced.contains(building) && bitBoard.canPlace(index);
+                        assertEquals(expected, actual, placement::toString);
+                        if (index >= 0) {
+                            assertEquals(placement, Footprints.placement(index));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vergleicht den {@link EndgameSolver} mit einem naiven Minimax ohne Schnitte, Cache und Sortierung, der bis
+ * zum Spielende über alle legalen Züge sucht und am Ende {@link Game#score()} auswertet. Ebenso den
+ * {@link MinimaxAgent}, wenn seine Suche bis zum Spielende reicht.
+ */
+class EndgameSolverTest {
+    private static final int GAMES = 12;
+    private static final int PLIES_BEFORE_END = 5;
+    private static final int MAX_NAIVE_NODES = 20_000;
+    private static final int MAX_PLY = 64;
+
+    @Test
+    void exactMarginMatchesNaiveMinimax() {
+        List<Game> positions = new ArrayList<>();
+        List<Integer> margins = new ArrayList<>();
+        int singleSided = 0;
+        for (int g = 0; g < GAMES; g++) {
+            List<Game> line = randomGame(g);
+            for (int i = Math.max(0, line.size() - 1 - PLIES_BEFORE_END); i < line.size() - 1; i++) {
+                Game position = line.get(i);
+                Integer margin = naive(position.copy(), position.getCurrentPlayer(), new int[]{MAX_NAIVE_NODES});
+                if (margin == null) {
+                    continue;
+                }
+                positions.add(position);
+                margins.add(margin);
+                if (onlyOneSideCanPlace(line, i)) {
+                    singleSided++;
+                }
+            }
+        }
+        assertTrue(positions.size() >= 10, () -> "only " + positions.size() + " positions");
+        assertTrue(singleSided > 0, "no position where only one side can place");
+
+        MinimaxAgent agent = new MinimaxAgent(1);
+        agent.setSearchFeatures(EnumSet.noneOf(SearchFeature.class));
+        EndgameSolver solver = new EndgameSolver(EndgameSolver.DEFAULT_MAX_BUILDINGS,
+                EndgameSolver.DEFAULT_MAX_EMPTY_CELLS, 1);
+        for (int p = 0; p < positions.size(); p++) {
+            Game position = positions.get(p);
+            Color player = position.getCurrentPlayer();
+            int expected = margins.get(p);
+            Game game = position.copy();
+            Optional<EndgameSolver.Solution> solution = solver.solve(game, Long.MAX_VALUE);
+
+            assertTrue(solution.isPresent());
+            assertTrue(solution.get().exact());
+            assertEquals(expected, solution.get().margin(), position.getBoard()::toString);
+            assertEquals(ZobristHash.hash(position), ZobristHash.hash(game), "solver changed the game");
+
+            // Der Zug des Lösers muss den berechneten Vorsprung auch erreichen
+            Game after = position.copy();
+            assertTrue(after.takeTurn(solution.get().move()), solution.get().move()::toString);
+            assertEquals(expected, (int) naive(after, player, new int[]{Integer.MAX_VALUE}), solution.get().move()::toString);
+
+            // Beendete Spiele bewertet die Suche exakt, unabhängig von der Heuristik
+            assertEquals(MinimaxAgent.terminalScore(expected), agent.searchFixedDepth(position.copy(), MAX_PLY),
+                    position.getBoard()::toString);
+        }
+    }
+
+    /**
+     * Spielt eine Zufallspartie bis zum Ende.
+     *
+     * @return Alle Stellungen der Partie, die letzte ist beendet.
+     */
+    private static List<Game> randomGame(long seed) {
+        Random random = new Random(seed);
+        Game game = new Game();
+        List<Game> line = new ArrayList<>();
+        line.add(game.copy());
+        while (!game.isFinished()) {
+            Placement placement = PositionSampler.randomPlacement(game, random);
+            if (placement == null) {
+                break;
+            }
+            game.takeTurn(placement);
+            line.add(game.copy());
+        }
+        return line;
+    }
+
+    /**
+     * @return Ob ab der Stellung bis zum Ende nur noch ein Spieler setzt, der Gegner also nicht mehr setzen kann.
+     */
+    private static boolean onlyOneSideCanPlace(List<Game> line, int index) {
+        Color mover = line.get(index).getCurrentPlayer();
+        for (int i = index + 1; i < line.size() - 1; i++) {
+            if (line.get(i).getCurrentPlayer() != mover) {
+                return false;
+            }
+        }
+        return line.size() - 1 > index + 1;
+    }
+
+    /**
+     * Minimax über alle legalen Züge bis zum Spielende.
+     *
+     * @param budget Die noch erlaubten Knoten; ist es aufgebraucht, ist das Ergebnis null.
+     * @return Der Vorsprung von player nach {@link Game#score()}.
+     */
+    private static Integer naive(Game game, Color player, int[] budget) {
+        if (--budget[0] < 0) {
+            return null;
+        }
+        if (game.isFinished()) {
+            Map<Color, Integer> score = game.score();
+            Color opponent = player == Color.Black ? Color.White : Color.Black;
+            return score.get(opponent) - score.get(player);
+        }
+        boolean maximizing = game.getCurrentPlayer() == player;
+        Integer best = null;
+        boolean[] seen = new boolean[Building.values().length];
+        for (Building building : game.getPlacableBuildings()) {
+            if (seen[building.ordinal()]) {
+                continue;
+            }
+            seen[building.ordinal()] = true;
+            for (int footprint : Footprints.of(building)) {
+                Placement placement = Footprints.placement(footprint);
+                if (!game.takeTurn(placement)) {
+                    continue;
+                }
+                Integer score;
+                try {
+                    score = naive(game, player, budget);
+                } finally {
+                    game.undoLastTurn();
+                }
+                if (score == null) {
+                    return null;
+                }
+                if (best == null || (maximizing ? score > best : score < best)) {
+                    best = score;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,59 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stellt sicher, dass {@link Evaluation#evaluate} und die Merkmale, auf denen {@link EvaluationTuner} lernt,
+ * dieselbe Bewertung ergeben.
+ */
+class EvaluationTest {
+    private static final int FEATURES = Evaluation.Feature.values().length;
+    private static final int EVALUATIONS = 8;
+    private static final Color[] PLAYERS = {Color.Black, Color.White};
+
+    @Test
+    void evaluateIsDotProductOfFeaturesAndWeights() {
+        Random random = new Random(17);
+        AreaTracker areas = new AreaTracker(0);
+        RegionTracker regions = new RegionTracker(0);
+        int[] features = new int[FEATURES];
+        Evaluation[] evaluations = new Evaluation[EVALUATIONS + 1];
+        evaluations[0] = Evaluation.defaults();
+        for (int e = 1; e <= EVALUATIONS; e++) {
+            // Gewichte auf Hundertstel, damit die Skalierung auf ganze Zahlen exakt ist
+            double[] weights = new double[FEATURES];
+            for (int f = 0; f < FEATURES; f++) {
+                weights[f] = (random.nextInt(801) - 400) / (double) Evaluation.SCALE;
+            }
+            evaluations[e] = new Evaluation(weights);
+        }
+
+        for (int plies : new int[]{2, 8, 14, 20}) {
+            for (Game game : PositionSampler.randomPositions(4, plies, plies)) {
+                areas.reset(game);
+                regions.reset(game, areas);
+                for (Color player : PLAYERS) {
+                    for (Color sideToMove : PLAYERS) {
+                        Evaluation.features(areas, regions, player, sideToMove, features);
+                        for (Evaluation evaluation : evaluations) {
+                            double[] weights = evaluation.weights();
+                            double expected = 0;
+                            for (int f = 0; f < FEATURES; f++) {
+                                expected += weights[f] * Evaluation.SCALE * features[f];
+                            }
+                            RegionTracker used = evaluation.usesRegions() ? regions : null;
+                            assertEquals(expected, evaluation.evaluate(areas, used, player, sideToMove), 1e-6,
+                                    evaluation + " for " + player + ", " + sideToMove + " to move");
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Direction;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Schreibt Partien mit {@link GameRecordWriter} und liest sie mit {@link GameRecordReader} zurück.
+ */
+class GameRecordTest {
+    private static final int SIZE = 10;
+
+    @Test
+    void everyPlacementAndPassRoundTrips() throws IOException {
+        // Jede Kombination aus Gebäude, Richtung und Position, nicht nur die auf das Brett passenden
+        List<Placement> placements = new ArrayList<>();
+        for (Building building : Building.values()) {
+            for (Direction direction : Direction.values()) {
+                for (int y = 0; y < SIZE; y++) {
+                    for (int x = 0; x < SIZE; x++) {
+                        placements.add(new Placement(x, y, direction, building));
+                    }
+                }
+            }
+        }
+        List<List<Placement>> games = new ArrayList<>();
+        for (int from = 0; from < placements.size(); from += RecordedGame.MAX_MOVES - 1) {
+            List<Placement> moves = new ArrayList<>();
+            moves.add(null);
+            moves.addAll(placements.subList(from, Math.min(placements.size(), from + RecordedGame.MAX_MOVES - 1)));
+            games.add(moves);
+        }
+
+        Path file = Files.createTempFile("records", ".rec");
+        try {
+            try (GameRecordWriter writer = GameRecordWriter.open(file)) {
+                for (int g = 0; g < games.size(); g++) {
+                    List<Placement> moves = games.get(g);
+                    List<Long> millis = new ArrayList<>();
+                    List<Color> colors = new ArrayList<>();
+                    for (int i = 0; i < moves.size(); i++) {
+                        millis.add((long) i * 17);
+                        colors.add(i % 2 == 0 ? Color.Black : Color.White);
+                    }
+                    writer.write("black " + g, "weiß " + g, 1000L * g, Map.of(Color.Black, g, Color.White, -g),
+                            moves, millis, colors);
+                }
+            }
+
+            try (GameRecordReader reader = GameRecordReader.open(file)) {
+                assertEquals(games.size(), reader.count());
+                for (int g = 0; g < games.size(); g++) {
+                    RecordedGame record = reader.get(g);
+                    List<Placement> moves = games.get(g);
+                    assertEquals("black " + g, record.agent(Color.Black));
+                    assertEquals("weiß " + g, record.agent(Color.White));
+                    assertEquals(1000L * g, record.startMillis());
+                    assertEquals(g, record.score(Color.Black));
+                    assertEquals(-g, record.score(Color.White));
+                    assertEquals(moves.size(), record.moveCount());
+                    assertNull(record.move(0));
+                    for (int i = 1; i < moves.size(); i++) {
+                        assertEquals(moves.get(i), record.move(i));
+                        assertEquals(Math.min(0xFFFF, i * 17), record.moveMillis(i));
+                    }
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void incompleteLastRecordIsTruncatedBeforeAppending() throws IOException {
+        Path file = Files.createTempFile("records", ".rec");
+        try {
+            try (GameRecordWriter writer = GameRecordWriter.open(file)) {
+                write(writer, "first", 3);
+            }
+            long firstEnd = Files.size(file);
+            try (GameRecordWriter writer = GameRecordWriter.open(file)) {
+                write(writer, "second", 5);
+            }
+            byte[] complete = Files.readAllBytes(file);
+
+            // Abgeschnitten im Längenfeld, im festen Kopf, in den Zügen und ein Byte vor dem Ende
+            long[] cuts = {firstEnd + 2, firstEnd + RecordedGame.NAMES + 3, complete.length - 5, complete.length - 1};
+            for (long cut : cuts) {
+                Files.write(file, Arrays.copyOf(complete, (int) cut));
+                try (GameRecordWriter writer = GameRecordWriter.open(file)) {
+                    assertEquals(firstEnd, Files.size(file), "not truncated at cut " + cut);
+                    write(writer, "third", 7);
+                }
+                try (GameRecordReader reader = GameRecordReader.open(file)) {
+                    assertEquals(2, reader.count(), "records after cut " + cut);
+                    assertEquals("first", reader.get(0).agent(Color.Black));
+                    assertEquals("third", reader.get(1).agent(Color.Black));
+                    assertEquals(7, reader.get(1).moveCount());
+                }
+            }
+
+            // Eine vollständige Datei bleibt unverändert
+            Files.write(file, complete);
+            GameRecordWriter.open(file).close();
+            assertEquals(complete.length, Files.size(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void write(GameRecordWriter writer, String agent, int moveCount) throws IOException {
+        List<Placement> moves = new ArrayList<>();
+        List<Long> millis = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        for (int i = 0; i < moveCount; i++) {
+            moves.add(Footprints.placement(i));
+            millis.add(10L * i);
+            colors.add(i % 2 == 0 ? Color.Black : Color.White);
+        }
+        writer.write(agent, agent + " white", 0, Map.of(Color.Black, 1, Color.White, 2), moves, millis, colors);
+    }
+
+    @Test
+    void passIsNotAPlacementCode() {
+        assertEquals(RecordedGame.PASS, RecordedGame.encode(null));
+        assertNull(RecordedGame.decode(RecordedGame.PASS));
+        List<Integer> codes = new ArrayList<>();
+        for (int index = 0; index < Footprints.count(); index++) {
+            codes.add(RecordedGame.encode(Footprints.placement(index)));
+        }
+        assertEquals(0, Collections.frequency(codes, RecordedGame.PASS));
+    }
+}
@@ -0,0 +1,69 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft, dass der {@link LookAheadAgent} nur Züge mit Flächengewinn spielt und erst die Rückfallstufe
+ * {@link LookAheadAgent#greedyMove} ohne Flächengewinn das größte passende Gebäude setzt.
+ */
+class LookAheadAgentTest {
+    private static final int POSITIONS = 30;
+
+    private final MinimaxAgent generator = new MinimaxAgent(1);
+
+    @Test
+    void onlyTheFallbackPlaysWithoutAreaGain() {
+        LookAheadAgent agent = new LookAheadAgent();
+        int withoutGain = 0;
+        int withGain = 0;
+        // Direkt nach der Kathedrale gewinnt kein Zug Fläche, einige Züge später meist einer
+        List<Game> positions = new ArrayList<>(PositionSampler.randomPositions(POSITIONS, 1, 19));
+        positions.addAll(PositionSampler.randomPositions(POSITIONS, 6, 19));
+        for (Game position : positions) {
+            Optional<Placement> greedy = LookAheadAgent.greedyMove(position);
+            assertTrue(greedy.isPresent());
+            int gain = gain(position, greedy.get());
+            Optional<Placement> move = agent.calculateTurn(position.copy(), 0, 0);
+            if (gain > 0) {
+                assertEquals(greedy, move);
+                withGain++;
+            } else {
+                assertEquals(Optional.empty(), move);
+                assertEquals(largestFittingScore(position), greedy.get().building().score());
+                withoutGain++;
+            }
+        }
+        assertTrue(withGain > 0 && withoutGain > 0, withGain + " with gain, " + withoutGain + " without");
+    }
+
+    private static int gain(Game game, Placement placement) {
+        AreaTracker areas = new AreaTracker(1);
+        areas.reset(game);
+        int before = areas.ownedArea(game.getCurrentPlayer());
+        Game after = game.copy();
+        assertTrue(after.takeTurn(placement));
+        areas.reset(after);
+        return areas.ownedArea(game.getCurrentPlayer()) - before;
+    }
+
+    private int largestFittingScore(Game game) {
+        int largest = 0;
+        for (Placement placement : generator.generatePossiblePlacements(game, game.getCurrentPlayer())) {
+            Building building = placement.building();
+            if (game.copy().takeTurn(placement)) {
+                largest = Math.max(largest, building.score());
+            }
+        }
+        return largest;
+    }
+}
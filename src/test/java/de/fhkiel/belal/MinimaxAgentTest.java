@@ -0,0 +1,136 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft, dass ein Agent mit warmer Transpositionstabelle dasselbe Ergebnis liefert wie ein neuer, auch wenn
+ * zuvor eine Stellung mit der anderen Farbe am Zug analysiert wurde, wie im {@link AnalysisServer}, und dass die
+ * Tabelle dabei warm bleibt. Außerdem,
+ * dass ein Ponder-Treffer übernommen wird und das Pondern mit dem nächsten Zug endet.
+ */
+class MinimaxAgentTest {
+    private static final int TT_SIZE_MB = 4;
+    private static final int POSITIONS = 6;
+    private static final long PONDER_MILLIS = 1500;
+
+    /**
+     * Sucht ohne Zeitdruck bis {@link TimeManager#SHALLOW_DEPTH}, damit das Ergebnis nicht von der Uhr abhängt.
+     */
+    private static final TimeManager SHALLOW = new TimeManager() {
+        @Override
+        public Budget allocate(Game game, int timeForTurn, int timeBonus, long start) {
+            return new Budget(start, Long.MAX_VALUE / 4, Long.MAX_VALUE / 4, Mode.SHALLOW);
+        }
+    };
+
+    @Test
+    void warmTableWithOtherRootColourMatchesColdEngine() {
+        Random random = new Random(21);
+        int compared = 0;
+        for (Game position : PositionSampler.randomPositions(POSITIONS, 10, 21)) {
+            // Nach dem Zug ist die andere Farbe am Zug; ihr Teilbaum überschneidet sich mit dem der Stellung
+            Placement move = PositionSampler.randomPlacement(position, random);
+            Game next = position.copy();
+            if (move == null || !next.takeTurn(move) || next.isFinished()
+                    || next.getCurrentPlayer() == position.getCurrentPlayer()) {
+                continue;
+            }
+            assertNotEquals(position.getCurrentPlayer(), next.getCurrentPlayer(), "root colour");
+
+            MinimaxAgent warm = agent();
+            warm.calculateTurn(next.copy(), 0, 0);
+            long nextNodes = warm.getLastSearchRecord().statistics().nodes();
+            Optional<Placement> warmMove = warm.calculateTurn(position.copy(), 0, 0);
+            SearchRecord warmRecord = warm.getLastSearchRecord();
+
+            MinimaxAgent cold = agent();
+            Optional<Placement> coldMove = cold.calculateTurn(position.copy(), 0, 0);
+            SearchRecord coldRecord = cold.getLastSearchRecord();
+
+            assertEquals(coldRecord.depth(), warmRecord.depth());
+            assertEquals(coldRecord.score(), warmRecord.score());
+            assertEquals(coldMove, warmMove);
+            assertEquals(coldRecord.pv(), warmRecord.pv());
+
+            // Die Einträge der anderen Farbe sind noch da, dieselbe Stellung ist schneller durchsucht
+            warm.calculateTurn(next.copy(), 0, 0);
+            assertTrue(warm.getLastSearchRecord().statistics().nodes() < nextNodes, "table not warm");
+            compared++;
+        }
+        assertTrue(compared > 0, "no position compared");
+    }
+
+    @Test
+    void ponderHitIsReusedAndPonderingStopsBeforeTheSearch() throws InterruptedException {
+        Game position = PositionSampler.randomPositions(1, 10, 14).get(0);
+        SwitchableTimeManager timeManager = new SwitchableTimeManager();
+        MinimaxAgent agent = agent();
+        timeManager.agent = agent;
+        agent.setTimeManager(timeManager);
+        agent.setPondering(true);
+        try {
+            Placement move = agent.calculateTurn(position.copy(), 0, 0).orElseThrow();
+            assertTrue(agent.isPondering(), "not pondering after the move");
+
+            // Die vorhergesagte Antwort wird zuerst gepondert
+            Game next = position.copy();
+            assertTrue(next.takeTurn(move));
+            if (next.getCurrentPlayer() != position.getCurrentPlayer()) {
+                assertTrue(next.takeTurn(agent.getLastSearchRecord().pv().get(1)));
+            }
+            Thread.sleep(PONDER_MILLIS);
+
+            // Die Zeit ist sofort abgelaufen, der Zug kann nur noch aus dem Pondern stammen
+            timeManager.expired = true;
+            Optional<Placement> answer = agent.calculateTurn(next.copy(), 0, 0);
+            assertFalse(timeManager.ponderingAtAllocate, "still pondering while searching");
+            assertTrue(agent.getLastPonderNodes() > 0);
+            assertTrue(agent.getLastPonderHitDepth() > 0, "ponder miss");
+            assertEquals(0, agent.getLastSearchDepth());
+            assertTrue(answer.isPresent() && next.copy().takeTurn(answer.get()), answer::toString);
+
+            // Eine nicht geponderte Stellung ist kein Treffer
+            agent.calculateTurn(PositionSampler.randomPositions(1, 12, 15).get(0), 0, 0);
+            assertFalse(timeManager.ponderingAtAllocate, "still pondering while searching");
+            assertEquals(0, agent.getLastPonderHitDepth());
+        } finally {
+            agent.setPondering(false);
+        }
+        assertFalse(agent.isPondering());
+    }
+
+    /**
+     * Sucht zuerst wie {@link #SHALLOW}, nach dem Umschalten mit sofort abgelaufener Zeit. Hält fest, ob beim
+     * Berechnen des Budgets, also nach dem Ende des Ponderns, noch im Hintergrund gesucht wurde.
+     */
+    private static final class SwitchableTimeManager extends TimeManager {
+        private MinimaxAgent agent;
+        private boolean expired;
+        private boolean ponderingAtAllocate;
+
+        @Override
+        public Budget allocate(Game game, int timeForTurn, int timeBonus, long start) {
+            ponderingAtAllocate = agent.isPondering();
+            return expired ? new Budget(start, 0, 0, Mode.FULL) : SHALLOW.allocate(game, timeForTurn, timeBonus, start);
+        }
+    }
+
+    private static MinimaxAgent agent() {
+        MinimaxAgent agent = new MinimaxAgent(TT_SIZE_MB);
+        agent.setVerbosity(SearchVerbosity.OFF);
+        agent.setOpeningBook(OpeningBook.EMPTY);
+        agent.setEndgameSolver(null);
+        agent.setTimeManager(SHALLOW);
+        return agent;
+    }
+}
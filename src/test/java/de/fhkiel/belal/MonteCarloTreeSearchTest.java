@@ -0,0 +1,167 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft {@link MonteCarloTreeSearch}, das Pondern und die Rückfallstufen des {@link LargestPieceAgent}.
+ */
+class MonteCarloTreeSearchTest {
+    private static final long FAR = Long.MAX_VALUE / 4;
+    private static final int GAMES = 3;
+    private static final long PLAYOUTS = 200;
+    private static final long PONDER_PLAYOUTS = 5000;
+
+    @Test
+    void everyMoveIsLegal() {
+        for (int g = 0; g < GAMES; g++) {
+            MonteCarloTreeSearch search = new MonteCarloTreeSearch(g);
+            Game game = new Game();
+            while (!game.isFinished()) {
+                Optional<Placement> move = search.search(game.copy(), FAR, PLAYOUTS);
+                if (move.isEmpty()) {
+                    assertEquals(null, PositionSampler.randomPlacement(game, new Random(g)), "no move while one is legal");
+                    game.forfeitTurn();
+                    continue;
+                }
+                assertEquals(game.getCurrentPlayer(), move.get().building().getColor(), move.get()::toString);
+                assertTrue(game.takeTurn(move.get()), move.get()::toString);
+            }
+        }
+    }
+
+    @Test
+    void subtreeIsReusedAfterOwnMoveAndReply() {
+        Game position = latePosition();
+        MonteCarloTreeSearch search = new MonteCarloTreeSearch(5);
+        Placement move = search.search(position.copy(), FAR, 20000).orElseThrow();
+
+        Game next = position.copy();
+        assertTrue(next.takeTurn(move));
+        if (next.getCurrentPlayer() != position.getCurrentPlayer()) {
+            Placement reply = PositionSampler.randomPlacement(next, new Random(5));
+            assertTrue(reply != null && next.takeTurn(reply));
+        }
+        // Ohne Zeit gibt es keinen Playout; einen Zug kann nur ein übernommener Teilbaum liefern
+        long past = System.currentTimeMillis() - 1;
+        Optional<Placement> reused = search.search(next.copy(), past, past, Long.MAX_VALUE);
+        assertEquals(0, search.getLastPlayouts());
+        assertTrue(reused.isPresent(), "subtree was not reused");
+        assertTrue(next.copy().takeTurn(reused.get()), reused.get()::toString);
+        assertTrue(new MonteCarloTreeSearch(5).search(next.copy(), past, past, Long.MAX_VALUE).isEmpty(),
+                "fresh search without playouts found a move");
+    }
+
+    @Test
+    void ponderedSubtreeIsReused() throws InterruptedException {
+        Game position = latePosition();
+        MonteCarloTreeSearch pondered = new MonteCarloTreeSearch(5);
+        MonteCarloTreeSearch plain = new MonteCarloTreeSearch(5);
+        Placement move = pondered.search(position.copy(), FAR, PLAYOUTS).orElseThrow();
+        assertEquals(move, plain.search(position.copy(), FAR, PLAYOUTS).orElseThrow());
+        pondered.startPondering(position, PONDER_PLAYOUTS);
+        for (int i = 0; i < 100 && pondered.isPondering(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(pondered.getLastPonderPlayouts() > 0);
+
+        Game next = position.copy();
+        assertTrue(next.takeTurn(move));
+        if (next.getCurrentPlayer() != position.getCurrentPlayer()) {
+            assertTrue(next.takeTurn(PositionSampler.randomPlacement(next, new Random(6))));
+        }
+        long past = System.currentTimeMillis() - 1;
+        Optional<Placement> answer = pondered.search(next.copy(), past, past, Long.MAX_VALUE);
+        plain.search(next.copy(), past, past, Long.MAX_VALUE);
+        assertTrue(answer.isPresent() && next.copy().takeTurn(answer.get()), answer::toString);
+        assertTrue(pondered.rootVisits() > plain.rootVisits(),
+                () -> "pondered root " + pondered.rootVisits() + ", plain root " + plain.rootVisits());
+    }
+
+    @Test
+    void largestPieceAgentStopsPonderingBeforeTheSearch() throws InterruptedException {
+        Game position = latePosition();
+        boolean[] ponderingAtAllocate = new boolean[1];
+        long[] millis = {300};
+        LargestPieceAgent agent = new LargestPieceAgent(Long.MAX_VALUE, 5);
+        agent.setTimeManager(new TimeManager() {
+            @Override
+            public Budget allocate(Game game, int timeForTurn, int timeBonus, long start) {
+                ponderingAtAllocate[0] = agent.isPondering();
+                return new Budget(start, millis[0], millis[0], Mode.FULL);
+            }
+        });
+        agent.setPondering(true);
+        try {
+            Placement move = agent.calculateTurn(position.copy(), 0, 0).orElseThrow();
+            assertTrue(agent.isPondering(), "not pondering after the move");
+            Thread.sleep(200);
+
+            Game next = position.copy();
+            assertTrue(next.takeTurn(move));
+            if (next.getCurrentPlayer() != position.getCurrentPlayer()) {
+                assertTrue(next.takeTurn(PositionSampler.randomPlacement(next, new Random(6))));
+            }
+            millis[0] = 0;
+            Optional<Placement> answer = agent.calculateTurn(next.copy(), 0, 0);
+            assertFalse(ponderingAtAllocate[0], "still pondering while searching");
+            assertTrue(answer.isPresent() && next.copy().takeTurn(answer.get()), answer::toString);
+        } finally {
+            agent.setPondering(false);
+        }
+        assertFalse(agent.isPondering());
+    }
+
+    @Test
+    void greedyMoveWhenBudgetIsUsedUp() {
+        for (Game position : PositionSampler.randomPositions(4, 8, 9)) {
+            Optional<Placement> greedy = LookAheadAgent.greedyMove(position);
+            assertTrue(greedy.isPresent());
+
+            // Zu wenig Zeit für eine Suche
+            LargestPieceAgent hurried = new LargestPieceAgent(PLAYOUTS);
+            hurried.setTimeManager(TimeManager.fixed(10));
+            assertEquals(greedy, hurried.calculateTurn(position.copy(), 0, 0));
+
+            // Kein Playout erlaubt, die Suche findet keinen Zug
+            LargestPieceAgent exhausted = new LargestPieceAgent(0);
+            exhausted.setTimeManager(TimeManager.fixed(1000));
+            assertEquals(greedy, exhausted.calculateTurn(position.copy(), 0, 0));
+        }
+    }
+
+    /**
+     * @return Eine Stellung aus dem späten Mittelspiel mit wenigen Zügen, damit alle Antworten expandiert werden.
+     */
+    private static Game latePosition() {
+        Random random = new Random(5);
+        Game game = new Game();
+        List<Game> positions = new ArrayList<>();
+        while (!game.isFinished()) {
+            Placement placement = PositionSampler.randomPlacement(game, random);
+            if (placement == null) {
+                break;
+            }
+            game.takeTurn(placement);
+            positions.add(game.copy());
+        }
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            Game candidate = positions.get(i);
+            if (!candidate.isFinished() && new MinimaxAgent(1).generatePossiblePlacements(candidate,
+                    candidate.getCurrentPlayer()).size() >= 2) {
+                return positions.get(Math.max(0, i - 4));
+            }
+        }
+        throw new IllegalStateException("No late position");
+    }
+}
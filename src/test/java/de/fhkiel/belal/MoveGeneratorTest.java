@@ -0,0 +1,68 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vergleicht die inkrementelle Zuggenerierung nach jedem apply und undo mit der vollständigen Generierung
+ * über {@link MinimaxAgent#generatePossiblePlacements}, für beide Farben.
+ */
+class MoveGeneratorTest {
+    private static final int MAX_PLY = 64;
+    private static final int GAMES = 20;
+    private static final int STEPS = 120;
+    private static final double UNDO_PROBABILITY = 0.3;
+
+    private final MinimaxAgent agent = new MinimaxAgent(1);
+
+    @Test
+    void incrementalGenerationMatchesFullGeneration() {
+        Random random = new Random(11);
+        AreaTracker areas = new AreaTracker(MAX_PLY);
+        MoveGenerator generator = new MoveGenerator(MAX_PLY);
+        ZobristHash zobrist = new ZobristHash(MAX_PLY);
+        int[] moves = new int[Footprints.count()];
+        for (int i = 0; i < GAMES; i++) {
+            Game game = new Game();
+            areas.reset(game);
+            generator.reset(areas);
+            zobrist.reset(game);
+            int depth = 0;
+            for (int step = 0; step < STEPS; step++) {
+                Placement placement = random.nextDouble() < UNDO_PROBABILITY ? null
+                        : PositionSampler.randomPlacement(game, random);
+                if (placement != null && depth < MAX_PLY) {
+                    assertTrue(game.takeTurn(placement), placement::toString);
+                    areas.apply(game, placement);
+                    generator.apply(areas);
+                    zobrist.push();
+                    zobrist.update(game, placement, areas);
+                    depth++;
+                } else if (depth > 0) {
+                    game.undoLastTurn();
+                    areas.undo();
+                    generator.undo();
+                    zobrist.pop();
+                    depth--;
+                } else {
+                    continue;
+                }
+                for (Color player : new Color[]{Color.Black, Color.White}) {
+                    int[] expected = agent.generatePossiblePlacements(game, player).stream()
+                            .mapToInt(Footprints::indexOf).sorted().toArray();
+                    int[] actual = Arrays.copyOf(moves, generator.generate(player, zobrist, moves));
+                    Arrays.sort(actual);
+                    assertArrayEquals(expected, actual, "game " + i + " step " + step + " " + player);
+                }
+            }
+        }
+    }
+}
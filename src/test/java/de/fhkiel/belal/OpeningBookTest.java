@@ -0,0 +1,117 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Schreibt kleine Eröffnungsbücher in temporäre Dateien und liest sie über {@link OpeningBook#open} wieder ein.
+ */
+class OpeningBookTest {
+
+    @Test
+    void builtBookRoundTrips() throws IOException {
+        Map<Long, OpeningBook.Entry> entries = OpeningBookBuilder.build(1, 3, 1, 7);
+        assertFalse(entries.isEmpty());
+        Path path = write(entries);
+        OpeningBook book = OpeningBook.open(path);
+
+        assertEquals(entries.size(), book.size());
+        for (Map.Entry<Long, OpeningBook.Entry> e : entries.entrySet()) {
+            assertEquals(Optional.of(Footprints.placement(e.getValue().move())), book.lookup(e.getKey()));
+        }
+        // Die Startstellung steht immer im Buch, der Zug muss in ihrer eigenen Lage legal sein
+        Optional<Placement> opening = book.lookup(new Game());
+        assertTrue(opening.isPresent());
+        assertTrue(new Game().takeTurn(opening.get()), opening.get()::toString);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            long key = random.nextLong();
+            if (!entries.containsKey(key)) {
+                assertTrue(book.lookup(key).isEmpty());
+            }
+        }
+        assertTrue(book.lookup(0).isEmpty());
+        Game late = PositionSampler.randomPositions(1, 20, 7).get(0);
+        ZobristHash zobrist = new ZobristHash(0);
+        zobrist.reset(late);
+        assertFalse(entries.containsKey(zobrist.canonical()));
+        assertTrue(book.lookup(late).isEmpty());
+        Files.delete(path);
+    }
+
+    @Test
+    void collidingKeysAreProbedLinearly() throws IOException {
+        // Drei Einträge ergeben 8 Slots, alle Schlüssel fallen in Slot 0
+        Map<Long, OpeningBook.Entry> entries = Map.of(
+                8L, new OpeningBook.Entry(3, 4, 100),
+                16L, new OpeningBook.Entry(5, 4, -100),
+                24L, new OpeningBook.Entry(7, 2, 0));
+        Path path = write(entries);
+        OpeningBook book = OpeningBook.open(path);
+
+        assertEquals(3, book.size());
+        assertEquals(Optional.of(Footprints.placement(3)), book.lookup(8L));
+        assertEquals(Optional.of(Footprints.placement(5)), book.lookup(16L));
+        assertEquals(Optional.of(Footprints.placement(7)), book.lookup(24L));
+        assertTrue(book.lookup(32L).isEmpty());
+        Files.delete(path);
+    }
+
+    @Test
+    void rejectsOtherVersionFingerprintAndMagic() throws IOException {
+        Path path = write(Map.of(8L, new OpeningBook.Entry(3, 4, 100)));
+        byte[] valid = Files.readAllBytes(path);
+
+        Files.write(path, patch(valid, 4, 1));
+        assertTrue(assertThrows(IOException.class, () -> OpeningBook.open(path)).getMessage().contains("version"));
+        Files.write(path, patch(valid, 8, 1));
+        assertTrue(assertThrows(IOException.class, () -> OpeningBook.open(path)).getMessage().contains("version"));
+        Files.write(path, patch(valid, 0, 1));
+        assertTrue(assertThrows(IOException.class, () -> OpeningBook.open(path)).getMessage().contains("Not an"));
+
+        // Ein unbrauchbares Standardbuch führt zum Spiel ohne Buch
+        Files.write(path, patch(valid, 4, 1));
+        String previous = System.setProperty("belal.book", path.toString());
+        try {
+            assertSame(OpeningBook.EMPTY, OpeningBook.loadDefault());
+        } finally {
+            if (previous == null) {
+                System.clearProperty("belal.book");
+            } else {
+                System.setProperty("belal.book", previous);
+            }
+        }
+        Files.delete(path);
+    }
+
+    private static Path write(Map<Long, OpeningBook.Entry> entries) throws IOException {
+        Path path = Files.createTempFile("opening", ".book");
+        OpeningBook.write(path, entries);
+        return path;
+    }
+
+    /**
+     * @return Eine Kopie der Datei, in der der Integer an der Stelle um delta verändert ist.
+     */
+    private static byte[] patch(byte[] bytes, int offset, int delta) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.clone());
+        buffer.putInt(offset, buffer.getInt(offset) + delta);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,94 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vergleicht den inkrementell geführten {@link RegionTracker} nach jedem apply und undo mit einem Tracker, der
+ * dieselbe Stellung per reset vollständig neu bestimmt. Die Reihenfolge der Regionen darf sich unterscheiden.
+ */
+class RegionTrackerTest {
+    private static final int MAX_PLY = 64;
+    private static final int GAMES = 20;
+    private static final int STEPS = 120;
+    private static final double UNDO_PROBABILITY = 0.3;
+    private static final Color[] PLAYERS = {Color.Black, Color.White};
+
+    @Test
+    void incrementalUpdateMatchesReset() {
+        Random random = new Random(20);
+        AreaTracker areas = new AreaTracker(MAX_PLY);
+        AreaTracker recountAreas = new AreaTracker(MAX_PLY);
+        RegionTracker incremental = new RegionTracker(MAX_PLY);
+        RegionTracker recount = new RegionTracker(MAX_PLY);
+        int reservedPositions = 0;
+        for (int i = 0; i < GAMES; i++) {
+            Game game = new Game();
+            areas.reset(game);
+            incremental.reset(game, areas);
+            int depth = 0;
+            for (int step = 0; step < STEPS; step++) {
+                Placement placement = random.nextDouble() < UNDO_PROBABILITY ? null
+                        : PositionSampler.randomPlacement(game, random);
+                if (placement != null && depth < MAX_PLY) {
+                    assertTrue(game.takeTurn(placement), placement::toString);
+                    areas.apply(game, placement);
+                    incremental.apply(game, areas, placement);
+                    depth++;
+                } else if (depth > 0) {
+                    game.undoLastTurn();
+                    areas.undo();
+                    incremental.undo();
+                    depth--;
+                } else {
+                    continue;
+                }
+                recountAreas.reset(game);
+                recount.reset(game, recountAreas);
+                assertSameState(recount, recountAreas, incremental, areas, "game " + i + " step " + step);
+                if (incremental.reservedArea(Color.Black) + incremental.reservedArea(Color.White) > 0) {
+                    reservedPositions++;
+                }
+            }
+        }
+        // Ohne reservierte Fläche wären die passenden Gebäude der Regionen kaum geprüft
+        assertTrue(reservedPositions > 0, "no position with reserved area");
+    }
+
+    private static void assertSameState(RegionTracker expected, AreaTracker expectedAreas, RegionTracker actual,
+                                        AreaTracker actualAreas, String position) {
+        assertEquals(expected.regionCount(), actual.regionCount(), () -> position + " regionCount");
+        Map<List<Long>, List<Boolean>> expectedRegions = regions(expected);
+        Map<List<Long>, List<Boolean>> actualRegions = regions(actual);
+        assertEquals(expectedRegions.size(), expected.regionCount(), () -> position + " duplicate region");
+        assertEquals(expectedRegions, actualRegions, () -> position + " regions and fits");
+        for (Color player : PLAYERS) {
+            assertEquals(expected.reservedArea(player), actual.reservedArea(player),
+                    () -> position + " reservedArea " + player);
+            assertEquals(expected.threatenedCells(player, expectedAreas), actual.threatenedCells(player, actualAreas),
+                    () -> position + " threatenedCells " + player);
+        }
+    }
+
+    /**
+     * @return Pro Region (Zellen 0-63, Zellen 64-99) ob ein Gebäude von Schwarz bzw. Weiß hineinpasst.
+     */
+    private static Map<List<Long>, List<Boolean>> regions(RegionTracker tracker) {
+        Map<List<Long>, List<Boolean>> regions = new HashMap<>();
+        for (int r = 0; r < tracker.regionCount(); r++) {
+            regions.put(List.of(tracker.regionLow(r), tracker.regionHigh(r)),
+                    List.of(tracker.fits(r, Color.Black), tracker.fits(r, Color.White)));
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,265 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Building;
+import de.fhkiel.ki.cathedral.game.Color;
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft die acht Transformationen aus {@link Symmetry} und den kanonischen Hash aus {@link ZobristHash}.
+ * Transformierte Stellungen entstehen, indem die Züge einer Zufallspartie transformiert nachgespielt werden.
+ */
+class SymmetryTest {
+    private static final int SIZE = 10;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int GAMES = 8;
+    private static final int SAMPLE_EVERY = 3;
+    private static final int MOVES_PER_POSITION = 8;
+
+    private final MinimaxAgent agent = new MinimaxAgent(1);
+
+    @Test
+    void cellMapsAreDistinctBijectionsWithInverses() {
+        List<String> maps = new ArrayList<>();
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            boolean[] hit = new boolean[CELLS];
+            StringBuilder map = new StringBuilder();
+            for (int cell = 0; cell < CELLS; cell++) {
+                int mapped = Symmetry.cell(t, cell);
+                hit[mapped] = true;
+                map.append(mapped).append(',');
+                assertEquals(cell, Symmetry.cell(Symmetry.inverse(t), mapped), "inverse of " + t);
+                // Benachbarte Zellen bleiben benachbart
+                if (cell % SIZE + 1 < SIZE) {
+                    int right = Symmetry.cell(t, cell + 1);
+                    assertEquals(1, Math.abs(right % SIZE - mapped % SIZE) + Math.abs(right / SIZE - mapped / SIZE));
+                }
+            }
+            for (boolean h : hit) {
+                assertTrue(h, "transform " + t + " is not a bijection");
+            }
+            assertTrue(!maps.contains(map.toString()), "transform " + t + " duplicates another");
+            maps.add(map.toString());
+        }
+        assertEquals(Symmetry.IDENTITY, Symmetry.inverse(Symmetry.IDENTITY));
+    }
+
+    @Test
+    void moveMapsTransformFootprintMasks() {
+        int[] counts = new int[Building.values().length];
+        for (int i = 0; i < Footprints.count(); i++) {
+            Building building = Footprints.building(i);
+            counts[building.ordinal()] = 1;
+            int allowed = Symmetry.allowed(counts);
+            counts[building.ordinal()] = 0;
+            for (int t = 0; t < Symmetry.COUNT; t++) {
+                int mapped = Symmetry.move(t, i);
+                String context = Footprints.placement(i) + " under " + t;
+                // Drehungen gibt es für jedes Gebäude, Spiegelungen genau dann, wenn sie erlaubt sind
+                assertEquals(t < 4 || (allowed >>> t & 1) != 0, mapped >= 0, context);
+                if (mapped < 0) {
+                    continue;
+                }
+                assertEquals(building, Footprints.building(mapped));
+                assertEquals(transformedLow(t, i), Footprints.low(mapped), context);
+                assertEquals(transformedHigh(t, i), Footprints.high(mapped), context);
+                int back = Symmetry.move(Symmetry.inverse(t), mapped);
+                assertEquals(Footprints.low(i), Footprints.low(back));
+                assertEquals(Footprints.high(i), Footprints.high(back));
+            }
+        }
+    }
+
+    @Test
+    void exactlyOneRepresentativePerBuildingAndMask() {
+        Map<List<Long>, Integer> representatives = new HashMap<>();
+        for (int i = 0; i < Footprints.count(); i++) {
+            List<Long> key = List.of((long) Footprints.building(i).ordinal(), Footprints.low(i), Footprints.high(i));
+            if (Symmetry.isRepresentative(i)) {
+                assertEquals(null, representatives.put(key, i), "second representative " + i);
+            }
+        }
+        for (int i = 0; i < Footprints.count(); i++) {
+            List<Long> key = List.of((long) Footprints.building(i).ordinal(), Footprints.low(i), Footprints.high(i));
+            assertTrue(representatives.containsKey(key), "no representative for " + i);
+        }
+    }
+
+    @Test
+    void onlyTheBoardBeforeTheCathedralIsSymmetric() {
+        Game empty = new Game();
+        int allTransforms = (1 << Symmetry.COUNT) - 1;
+        assertEquals(Symmetry.allowed(empty.getBoard()),
+                Symmetry.stabilizer(empty.getBoard().getField(), Symmetry.allowed(empty.getBoard())));
+        assertEquals(allTransforms, Symmetry.stabilizer(empty.getBoard().getField(), allTransforms));
+
+        // Die Kathedrale ist nur an einer Achse durch eine Zellmitte symmetrisch, das Brett hat keine solche Achse.
+        // Ihre Zellen bleiben bis zum Spielende belegt, also ist jede spätere Stellung unsymmetrisch.
+        int placed = 0;
+        for (int footprint : Footprints.of(Building.Blue_Cathedral)) {
+            Game game = new Game();
+            if (game.takeTurn(Footprints.placement(footprint))) {
+                assertEquals(1 << Symmetry.IDENTITY, Symmetry.stabilizer(game.getBoard().getField(), allTransforms),
+                        () -> "symmetric after " + Footprints.placement(footprint));
+                placed++;
+            }
+        }
+        assertTrue(placed > 0);
+    }
+
+    @Test
+    void canonicalKeyIsSharedBySymmetricPositions() {
+        Random random = new Random(15);
+        int rotationOnly = 0;
+        for (int g = 0; g < GAMES; g++) {
+            List<Placement> moves = randomGame(random);
+            for (int ply = 0; ply <= moves.size(); ply += SAMPLE_EVERY) {
+                List<Placement> prefix = moves.subList(0, ply);
+                Game game = replay(prefix, Symmetry.IDENTITY);
+                int allowed = Symmetry.allowed(game.getBoard());
+                long canonical = ZobristHash.canonical(game);
+
+                // Der kanonische Schlüssel ist das Minimum der Hashes über alle erlaubten Transformationen
+                long rotationMinimum = Long.MAX_VALUE;
+                long allowedMinimum = Long.MAX_VALUE;
+                boolean complete = true;
+                Game[] transformed = new Game[Symmetry.COUNT];
+                for (int t = 0; t < Symmetry.COUNT; t++) {
+                    transformed[t] = replay(prefix, t);
+                    if (transformed[t] == null) {
+                        assertTrue(t >= 4, "rotation " + t + " not replayable");
+                        complete &= (allowed >>> t & 1) == 0;
+                        continue;
+                    }
+                    assertTransformedField(game, transformed[t], t);
+                    long hash = ZobristHash.hash(transformed[t]);
+                    if (t < 4) {
+                        rotationMinimum = Math.min(rotationMinimum, hash);
+                    }
+                    if ((allowed >>> t & 1) != 0) {
+                        allowedMinimum = Math.min(allowedMinimum, hash);
+                        assertEquals(canonical, ZobristHash.canonical(transformed[t]), "ply " + ply + " transform " + t);
+                    }
+                }
+                if ((allowed & 0xF0) == 0) {
+                    // Ohne erlaubte Spiegelung bleibt es bei den Drehungen
+                    assertEquals(rotationMinimum, canonical, "ply " + ply);
+                    rotationOnly++;
+                } else if (complete) {
+                    assertEquals(allowedMinimum, canonical, "ply " + ply);
+                }
+                assertCanonicalMovesMapBack(game, transformed, random);
+            }
+        }
+        assertTrue(rotationOnly > 0, "no position without an allowed mirror");
+    }
+
+    /**
+     * Ein in Stellung A kanonisch gespeicherter Zug muss in jeder symmetrischen Stellung B legal sein und
+     * zu einer Stellung mit demselben kanonischen Schlüssel führen, so wie ihn die Transpositionstabelle nutzt.
+     */
+    private void assertCanonicalMovesMapBack(Game game, Game[] transformed, Random random) {
+        ZobristHash zobrist = new ZobristHash(0);
+        zobrist.reset(game);
+        List<Placement> legal = agent.generatePossiblePlacements(game, game.getCurrentPlayer());
+        for (int i = 0; i < MOVES_PER_POSITION && !legal.isEmpty(); i++) {
+            Placement move = legal.get(random.nextInt(legal.size()));
+            int canonicalMove = Symmetry.move(zobrist.transform(), Footprints.indexOf(move));
+            assertTrue(canonicalMove >= 0, move::toString);
+            Game after = game.copy();
+            if (!after.takeTurn(move)) {
+                continue;
+            }
+            long expected = ZobristHash.canonical(after);
+            for (Game other : transformed) {
+                if (other == null || ZobristHash.canonical(other) != ZobristHash.canonical(game)) {
+                    continue;
+                }
+                ZobristHash otherZobrist = new ZobristHash(0);
+                otherZobrist.reset(other);
+                int back = Symmetry.move(Symmetry.inverse(otherZobrist.transform()), canonicalMove);
+                assertTrue(back >= 0, move::toString);
+                Placement mapped = Footprints.placement(back);
+                assertTrue(agent.generatePossiblePlacements(other, other.getCurrentPlayer()).contains(mapped), mapped::toString);
+                Game otherAfter = other.copy();
+                assertTrue(otherAfter.takeTurn(mapped), mapped::toString);
+                assertEquals(expected, ZobristHash.canonical(otherAfter), mapped::toString);
+            }
+        }
+    }
+
+    private static List<Placement> randomGame(Random random) {
+        Game game = new Game();
+        List<Placement> moves = new ArrayList<>();
+        while (!game.isFinished()) {
+            Placement placement = PositionSampler.randomPlacement(game, random);
+            if (placement == null) {
+                break;
+            }
+            game.takeTurn(placement);
+            moves.add(placement);
+        }
+        return moves;
+    }
+
+    /**
+     * @return Die Partie mit allen Zügen transformiert oder null, wenn ein Gebäude die Transformation nicht erlaubt.
+     */
+    private static Game replay(List<Placement> moves, int transform) {
+        Game game = new Game();
+        for (Placement move : moves) {
+            int mapped = Symmetry.move(transform, Footprints.indexOf(move));
+            if (mapped < 0) {
+                return null;
+            }
+            assertTrue(game.takeTurn(Footprints.placement(mapped)), () -> move + " under " + transform);
+        }
+        return game;
+    }
+
+    private static void assertTransformedField(Game game, Game transformed, int t) {
+        Color[][] field = game.getBoard().getField();
+        Color[][] other = transformed.getBoard().getField();
+        for (int cell = 0; cell < CELLS; cell++) {
+            int mapped = Symmetry.cell(t, cell);
+            assertEquals(field[cell / SIZE][cell % SIZE], other[mapped / SIZE][mapped % SIZE], "transform " + t);
+        }
+        assertEquals(game.getCurrentPlayer(), transformed.getCurrentPlayer());
+    }
+
+    private static long transformedLow(int t, int footprint) {
+        long low = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int mapped = Symmetry.cell(t, cell);
+            if (contains(footprint, cell) && mapped < 64) {
+                low |= 1L << mapped;
+            }
+        }
+        return low;
+    }
+
+    private static long transformedHigh(int t, int footprint) {
+        long high = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int mapped = Symmetry.cell(t, cell);
+            if (contains(footprint, cell) && mapped >= 64) {
+                high |= 1L << (mapped - 64);
+            }
+        }
+        return high;
+    }
+
+    private static boolean contains(int footprint, int cell) {
+        return cell < 64 ? (Footprints.low(footprint) >>> cell & 1L) != 0 : (Footprints.high(footprint) >>> (cell - 64) & 1L) != 0;
+    }
+}
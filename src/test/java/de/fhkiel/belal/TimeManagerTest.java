@@ -0,0 +1,120 @@
+package de.fhkiel.belal;
+
+import de.fhkiel.ki.cathedral.game.Game;
+import de.fhkiel.ki.cathedral.game.Placement;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft die Zeiteinteilung des {@link TimeManager} an Stellungen mit bekannter Anzahl ausstehender eigener Züge.
+ */
+class TimeManagerTest {
+    private static final long START = 1_000_000;
+    private static final int GAMES = 40;
+
+    /** Pro Anzahl ausstehender Züge eine Stellung mit Schwarz oder Weiß am Zug. */
+    private static final Map<Integer, Game> BY_TURNS = new HashMap<>();
+
+    @BeforeAll
+    static void samplePositions() {
+        Random random = new Random(19);
+        for (int g = 0; g < GAMES; g++) {
+            Game game = new Game();
+            while (!game.isFinished()) {
+                Placement placement = PositionSampler.randomPlacement(game, random);
+                if (placement == null) {
+                    break;
+                }
+                game.takeTurn(placement);
+                if (!game.isFinished()) {
+                    BY_TURNS.putIfAbsent(TimeManager.remainingTurns(game, game.getCurrentPlayer()), game.copy());
+                }
+            }
+        }
+    }
+
+    @Test
+    void defaultBudgetScalesTargetWithPhase() {
+        TimeManager timeManager = new TimeManager();
+        assertTrue(BY_TURNS.keySet().containsAll(List.of(1, 4, 5)), BY_TURNS.keySet()::toString);
+        for (Map.Entry<Integer, Game> position : BY_TURNS.entrySet()) {
+            int turns = position.getKey();
+            // Eröffnung ab 12 Zügen 0.5, Endspiel bis 4 Züge 0.75, dazwischen 1.5; das Mittelspiel erhält 10 s
+            long target = turns >= 12 ? 3333 : turns <= 4 ? 5000 : 10000;
+            for (int[] times : new int[][]{{0, 0}, {-1, 0}, {0, -3}, {-2, -2}}) {
+                assertBudget(timeManager.allocate(position.getValue(), times[0], times[1], START), target,
+                        TimeManager.DEFAULT_BUDGET_MS, TimeManager.Mode.FULL);
+            }
+        }
+    }
+
+    @Test
+    void bonusIsSharedByPhaseWeights() {
+        TimeManager timeManager = new TimeManager();
+        // Mittelspiel mit 5 Zügen: 60 s * 1.5 / (4 * 0.75 + 1.5) = 20 s, höchstens die Hälfte des Bonus
+        assertBudget(timeManager.allocate(position(5), 1, 60, START), 20750, 30750, TimeManager.Mode.FULL);
+        // Endspiel mit 2 Zügen: 60 s * 0.75 / 1.5 = 30 s, hart begrenzt auf die Hälfte des Bonus
+        assertBudget(timeManager.allocate(position(2), 1, 60, START), 30750, 30750, TimeManager.Mode.FULL);
+        // Mittelspiel mit 9 Zügen: 60 s * 1.5 / (4 * 0.75 + 5 * 1.5) = 8571 ms
+        assertBudget(timeManager.allocate(position(9), 1, 60, START), 9321, 17892, TimeManager.Mode.FULL);
+        // Ohne Bonus nur die Zugzeit abzüglich Sicherheitsabstand
+        assertBudget(timeManager.allocate(position(5), 2, 0, START), 1750, 1750, TimeManager.Mode.FULL);
+    }
+
+    @Test
+    void modeFollowsHardLimit() {
+        assertEquals(TimeManager.Mode.GREEDY, TimeManager.fixed(0).allocate(position(5), 0, 0, START).mode());
+        assertEquals(TimeManager.Mode.GREEDY, TimeManager.fixed(99).allocate(position(5), 0, 0, START).mode());
+        assertEquals(TimeManager.Mode.SHALLOW, TimeManager.fixed(100).allocate(position(5), 0, 0, START).mode());
+        assertEquals(TimeManager.Mode.SHALLOW, TimeManager.fixed(499).allocate(position(5), 0, 0, START).mode());
+        assertEquals(TimeManager.Mode.FULL, TimeManager.fixed(500).allocate(position(5), 0, 0, START).mode());
+
+        TimeManager timeManager = new TimeManager();
+        // 1 s Bonus bei 5 Zügen: Anteil 333 ms, harte Grenze 500 - 250 ms
+        assertBudget(timeManager.allocate(position(5), 0, 1, START), 83, 250, TimeManager.Mode.SHALLOW);
+        // 1 s Bonus bei 9 Zügen: Anteil 143 ms, beide Grenzen auf das Minimum angehoben
+        assertBudget(timeManager.allocate(position(9), 0, 1, START), 50, 50, TimeManager.Mode.GREEDY);
+    }
+
+    @Test
+    void nextIterationDependsOnStabilityAndRemainingTime() {
+        TimeManager.Budget budget = new TimeManager.Budget(START, 1000, 2000, TimeManager.Mode.FULL);
+        assertEquals(START + 1000, budget.softDeadline());
+        assertEquals(START + 2000, budget.deadline());
+        // Gerade gewechselter Zug: bis 1.5-fache Zielzeit
+        assertTrue(budget.startNextIteration(START + 1400, 1, 10));
+        assertFalse(budget.startNextIteration(START + 1500, 1, 10));
+        // Unentschieden: bis zur Zielzeit
+        assertTrue(budget.startNextIteration(START + 900, 2, 10));
+        assertFalse(budget.startNextIteration(START + 1000, 2, 10));
+        // Stabil: bis zur halben Zielzeit
+        assertTrue(budget.startNextIteration(START + 400, 3, 10));
+        assertFalse(budget.startNextIteration(START + 500, 3, 10));
+        // Die nächste Iteration würde die harte Grenze überschreiten
+        assertFalse(budget.startNextIteration(START + 900, 2, 600));
+    }
+
+    private static Game position(int turns) {
+        Game game = BY_TURNS.get(turns);
+        assertNotNull(game, "no position with " + turns + " remaining turns");
+        assertEquals(turns, TimeManager.remainingTurns(game, game.getCurrentPlayer()));
+        return game;
+    }
+
+    private static void assertBudget(TimeManager.Budget budget, long target, long maximum, TimeManager.Mode mode) {
+        assertEquals(START, budget.start());
+        assertEquals(target, budget.target(), "target");
+        assertEquals(maximum, budget.maximum(), "maximum");
+        assertEquals(mode, budget.mode());
+    }
+}
@@ -0,0 +1,89 @@
+package de.fhkiel.belal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prüft die Statistiken des {@link TournamentReport} an Turnieren mit bekannten Ergebnissen und Zugzeiten.
+ */
+class TournamentReportTest {
+    private static final double DELTA = 1e-9;
+    private static final long MS = 1_000_000;
+
+    @Test
+    void countsAndEloIntervalFromKnownResults() {
+        // 5 Siege, 3 Unentschieden, 2 Niederlagen: Punkteanteil 0.65
+        List<TournamentRunner.GameResult> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int scoreB = i < 5 ? 10 : i < 8 ? 4 : 1;
+            results.add(result(i, 4, scoreB, List.of(), List.of()));
+        }
+        TournamentReport report = new TournamentReport("A", "B", results);
+
+        assertEquals(5, report.wins());
+        assertEquals(3, report.draws());
+        assertEquals(2, report.losses());
+        assertEquals((5 * 6 + 2 * -3) / 10.0, report.meanMargin(), DELTA);
+
+        double p = 0.65;
+        double error = Math.sqrt(p * (1 - p) / 10);
+        assertEquals(elo(p), report.elo(), DELTA);
+        assertEquals(107.5, report.elo(), 0.1);
+        double[] interval = report.eloInterval();
+        assertEquals(elo(p - 1.96 * error), interval[0], DELTA);
+        assertEquals(elo(p + 1.96 * error), interval[1], DELTA);
+        assertEquals(-104.2, interval[0], 0.1);
+        assertEquals(496.1, interval[1], 0.1);
+    }
+
+    @Test
+    void eloIsBoundedForPerfectScore() {
+        List<TournamentRunner.GameResult> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(result(i, 0, 5, List.of(), List.of()));
+        }
+        TournamentReport report = new TournamentReport("A", "B", results);
+
+        // Punkteanteil auf 1 - 0.5 / 4 begrenzt
+        assertEquals(elo(0.875), report.elo(), DELTA);
+        assertEquals(elo(0.875), report.eloInterval()[1], DELTA);
+        // Ohne Streuung fällt das Intervall auf den Punkt zusammen
+        assertEquals(elo(0.875), report.eloInterval()[0], DELTA);
+    }
+
+    @Test
+    void latencyPercentilesAcrossGames() {
+        // A: 1 bis 100 ms über zwei Partien verteilt, absteigend eingetragen; B: immer 7 ms
+        List<Long> first = new ArrayList<>();
+        List<Long> second = new ArrayList<>();
+        for (int ms = 100; ms >= 1; ms--) {
+            (ms % 2 == 0 ? first : second).add(ms * MS);
+        }
+        TournamentReport report = new TournamentReport("A", "B", List.of(
+                result(0, 1, 1, first, List.of(7 * MS, 7 * MS)),
+                result(1, 1, 1, second, List.of(7 * MS))));
+
+        assertEquals(1.0, report.latencyA(0), DELTA);
+        assertEquals(50.0, report.latencyA(50), DELTA);
+        assertEquals(90.0, report.latencyA(90), DELTA);
+        assertEquals(99.0, report.latencyA(99), DELTA);
+        assertEquals(100.0, report.latencyA(100), DELTA);
+        assertEquals(7.0, report.latencyB(50), DELTA);
+        assertEquals(7.0, report.latencyB(99), DELTA);
+        assertEquals(0.0, new TournamentReport("A", "B", List.of()).latencyA(50), DELTA);
+    }
+
+    private static double elo(double p) {
+        return -400 * Math.log10(1 / p - 1);
+    }
+
+    private static TournamentRunner.GameResult result(int index, int scoreA, int scoreB, List<Long> latenciesA,
+                                                      List<Long> latenciesB) {
+        return new TournamentRunner.GameResult(index, index % 2 == 0, scoreA, scoreB, 40, 0, 0, latenciesA,
+                latenciesB, List.of());
+    }
+}
@@ -0,0 +1,38 @@
+package de.fhkiel.belal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft, dass der {@link TournamentRunner} seine Agenten pro Thread wiederverwendet.
+ */
+class TournamentRunnerTest {
+
+    @Test
+    void agentsAreCreatedOncePerThread() throws Exception {
+        AtomicInteger createdA = new AtomicInteger();
+        AtomicInteger createdB = new AtomicInteger();
+        TournamentRunner runner = new TournamentRunner(() -> {
+            createdA.incrementAndGet();
+            return new LookAheadAgent();
+        }, () -> {
+            createdB.incrementAndGet();
+            return new LookAheadAgent();
+        }, 1, 0);
+
+        List<TournamentRunner.GameResult> results = runner.run(4, 2);
+
+        assertEquals(4, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).index());
+        }
+        // Welcher Thread wie viele Partien spielt, ist offen; mehr als ein Agent pro Thread darf es nicht geben
+        assertTrue(createdA.get() >= 1 && createdA.get() <= 2, () -> "agent A created " + createdA.get() + " times");
+        assertTrue(createdB.get() >= 1 && createdB.get() <= 2, () -> "agent B created " + createdB.get() + " times");
+    }
+}